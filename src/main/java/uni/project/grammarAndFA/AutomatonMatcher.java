@@ -0,0 +1,170 @@
+package uni.project.grammarAndFA;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+/**
+ * Incremental matcher over a {@link CompiledAutomaton}.
+ * Input is fed in chunks of chars or bytes and the accept status can be queried at any point,
+ * so arbitrarily long inputs are checked in constant memory. Bytes are read as the chars
+ * 0-255 (ISO-8859-1). Instances are not thread-safe.
+ */
+public final class AutomatonMatcher {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CompiledAutomaton automaton;
+    private final int numClasses;
+    private final long[] live; // States that can still reach an accepting state
+    private int state; // Current DFA state
+    private long[] current; // Active NFA states
+    private long[] next;
+    private boolean dead;
+    private long position;
+
+    AutomatonMatcher(CompiledAutomaton automaton) {
+        this.automaton = automaton;
+        this.numClasses = automaton.classCount;
+        this.live = automaton.liveSet();
+        if (!automaton.isDeterministic()) {
+            this.current = new long[automaton.words];
+            this.next = new long[automaton.words];
+        }
+        reset();
+    }
+
+    /**
+     * Returns the matcher to the start state so it can check a new input.
+     *
+     * @return This matcher
+     */
+    public AutomatonMatcher reset() {
+        state = automaton.initial;
+        if (current != null) {
+            System.arraycopy(automaton.initialSet, 0, current, 0, current.length);
+            dead = !CompiledAutomaton.intersects(current, live);
+        } else {
+            dead = !isLive(state);
+        }
+        position = 0;
+        return this;
+    }
+
+    public AutomatonMatcher feed(char c) {
+        position++;
+        if (dead) return this;
+
+        int symbol = automaton.classOf(c);
+        if (symbol == CompiledAutomaton.DEAD) {
+            dead = true;
+        } else if (current == null) {
+            state = automaton.transitions[state * numClasses + symbol];
+            dead = state == CompiledAutomaton.DEAD || !isLive(state);
+        } else if (automaton.step(current, symbol, next) && CompiledAutomaton.intersects(next, live)) {
+            long[] tmp = current;
+            current = next;
+            next = tmp;
+        } else {
+            dead = true;
+        }
+        return this;
+    }
+
+    // Once the matcher is dead the rest of a chunk is skipped, but still counted
+    public AutomatonMatcher feed(char[] buffer, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end && !dead) feed(buffer[i++]);
+        position += end - i;
+        return this;
+    }
+
+    public AutomatonMatcher feed(CharSequence chunk) {
+        int i = 0;
+        while (i < chunk.length() && !dead) feed(chunk.charAt(i++));
+        position += chunk.length() - i;
+        return this;
+    }
+
+    /**
+     * Feeds the remaining bytes of the buffer, leaving it fully consumed.
+     *
+     * @param bytes The bytes to feed
+     * @return This matcher
+     */
+    public AutomatonMatcher feed(ByteBuffer bytes) {
+        while (bytes.hasRemaining() && !dead) feed((char) (bytes.get() & 0xFF));
+        position += bytes.remaining();
+        bytes.position(bytes.limit());
+        return this;
+    }
+
+    /**
+     * Feeds everything the reader produces. Reading stops early once no continuation
+     * of the input can be accepted.
+     *
+     * @param reader The source of chars, not closed by this method
+     * @return This matcher
+     * @throws IOException if reading fails
+     */
+    public AutomatonMatcher feed(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while (!dead && (read = reader.read(buffer)) != -1) feed(buffer, 0, read);
+        return this;
+    }
+
+    /**
+     * Feeds everything the channel produces. Reading stops early once no continuation
+     * of the input can be accepted. The channel must block until data arrives: a non-blocking
+     * channel is rejected up front, feed its bytes with {@link #feed(ByteBuffer)} as they are selected.
+     *
+     * @param channel The source of bytes, not closed by this method
+     * @return This matcher
+     * @throws IllegalBlockingModeException if the channel is in non-blocking mode
+     * @throws IOException if reading fails
+     */
+    public AutomatonMatcher feed(ReadableByteChannel channel) throws IOException {
+        if (channel instanceof SelectableChannel selectable && !selectable.isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (!dead && channel.read(buffer) != -1) {
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the input fed so far belongs to the language
+     */
+    public boolean isAccepting() {
+        if (dead) return false;
+        if (current == null) return automaton.accepting[state];
+        return CompiledAutomaton.intersects(current, automaton.acceptingSet);
+    }
+
+    /**
+     * @return true if none of the active states can reach an accepting state any more,
+     *         so no continuation of the input fed so far can be accepted
+     */
+    public boolean isDead() {
+        return dead;
+    }
+
+    private boolean isLive(int state) {
+        return (live[state >>> 6] & (1L << state)) != 0;
+    }
+
+    /**
+     * @return The number of chars or bytes fed since the last reset
+     */
+    public long position() {
+        return position;
+    }
+}
@@ -0,0 +1,284 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Conversion to Chomsky Normal Form on interned int symbols. The phases run in the order
+ * START, TERM, BIN, DEL, UNIT and then remove useless symbols. Binarizing before removing
+ * ε-rules keeps every body at two symbols or fewer, so DEL adds at most two rules per rule instead
+ * of a power set. Nullable, productive and accessible symbols are found with worklists over
+ * per-symbol occurrence lists, so every phase except UNIT is linear in the grammar size;
+ * UNIT is linear in the size of its output.
+ */
+final class CnfConverter {
+    private final SymbolTable symbols;
+    private int start;
+
+    // Rules as parallel growable arrays
+    private int[] heads = new int[16];
+    private int[][] bodies = new int[16][];
+    private int ruleCount;
+
+    private CnfConverter(Grammar grammar) {
+        grammar.requireContextFree();
+        this.symbols = new SymbolTable(grammar.symbols);
+        this.start = grammar.start;
+        for (int head = 0; head < symbols.size(); head++) {
+            for (int r = grammar.ruleOffsets[head]; r < grammar.ruleOffsets[head + 1]; r++) {
+                addRule(head, grammar.ruleBodies[r].clone());
+            }
+        }
+    }
+
+    /**
+     * @return The grammar in Chomsky Normal Form, where only the start variable may derive ε
+     */
+    static Grammar convert(Grammar grammar) {
+        CnfConverter converter = new CnfConverter(grammar);
+        converter.addStart();
+        converter.replaceTerminals();
+        converter.binarize();
+        converter.removeNullable();
+        converter.removeUnitRules();
+        converter.removeUselessSymbols();
+        return new Grammar(converter.symbols, converter.start, converter.heads, converter.bodies, converter.ruleCount);
+    }
+
+    private void addRule(int head, int[] body) {
+        if (ruleCount == heads.length) {
+            heads = Arrays.copyOf(heads, ruleCount * 2);
+            bodies = Arrays.copyOf(bodies, ruleCount * 2);
+        }
+        heads[ruleCount] = head;
+        bodies[ruleCount++] = body;
+    }
+
+    // Step 1 (START): a fresh start variable if the old one is used in a body or derives ε directly
+    private void addStart() {
+        boolean needNewStart = false;
+        for (int r = 0; r < ruleCount && !needNewStart; r++) {
+            if (heads[r] == start && bodies[r].length == 0) needNewStart = true;
+            for (int symbol : bodies[r]) needNewStart |= symbol == start;
+        }
+        if (!needNewStart) return;
+        String name = "S0";
+        while (symbols.contains(name)) name = name + "0";
+        int newStart = symbols.add(name, false);
+        addRule(newStart, new int[]{start});
+        start = newStart;
+    }
+
+    // Step 2 (TERM): terminals in bodies of two or more symbols go through A → a wrappers
+    private void replaceTerminals() {
+        int[] wrappers = new int[symbols.size()];
+        Arrays.fill(wrappers, -1);
+        int[] counter = {1};
+        int count = ruleCount;
+        for (int r = 0; r < count; r++) {
+            int[] body = bodies[r];
+            if (body.length < 2) continue;
+            for (int i = 0; i < body.length; i++) {
+                int symbol = body[i];
+                if (!symbols.isTerminal(symbol)) continue;
+                if (wrappers[symbol] < 0) {
+                    wrappers[symbol] = symbols.fresh("T", counter);
+                    addRule(wrappers[symbol], new int[]{symbol});
+                }
+                body[i] = wrappers[symbol];
+            }
+        }
+    }
+
+    // Step 3 (BIN): A → X1 X2 ... Xk becomes A → X1 V1, V1 → X2 V2, ..., V(k-2) → X(k-1) Xk
+    private void binarize() {
+        int[] counter = {1};
+        int count = ruleCount;
+        for (int r = 0; r < count; r++) {
+            int[] body = bodies[r];
+            if (body.length <= 2) continue;
+            int next = symbols.fresh("V", counter);
+            bodies[r] = new int[]{body[0], next};
+            for (int i = 1; i < body.length - 2; i++) {
+                int current = next;
+                next = symbols.fresh("V", counter);
+                addRule(current, new int[]{body[i], next});
+            }
+            addRule(next, new int[]{body[body.length - 2], body[body.length - 1]});
+        }
+    }
+
+    // Step 4 (DEL): drop ε-rules and add the variants of every rule without its nullable symbols
+    private void removeNullable() {
+        boolean[] nullable = fixedPoint(true);
+        int count = ruleCount;
+        int[] oldHeads = heads;
+        int[][] oldBodies = bodies;
+        heads = new int[Math.max(16, count * 2)];
+        bodies = new int[heads.length][];
+        ruleCount = 0;
+        for (int r = 0; r < count; r++) {
+            int[] body = oldBodies[r];
+            if (body.length == 0) continue;
+            addRule(oldHeads[r], body);
+            if (body.length == 2) {
+                if (nullable[body[0]]) addRule(oldHeads[r], new int[]{body[1]});
+                if (nullable[body[1]]) addRule(oldHeads[r], new int[]{body[0]});
+            }
+        }
+        if (nullable[start]) addRule(start, new int[0]);
+    }
+
+    // Step 5 (UNIT): every A takes the non-unit rules of all B with A ⇒* B through unit rules
+    private void removeUnitRules() {
+        int[] offsets = new int[symbols.size() + 1];
+        int[] byHead = groupByHead(offsets);
+        int count = ruleCount;
+        int[] oldHeads = heads;
+        int[][] oldBodies = bodies;
+        heads = new int[Math.max(16, count)];
+        bodies = new int[heads.length][];
+        ruleCount = 0;
+
+        int[] visited = new int[symbols.size()];
+        Arrays.fill(visited, -1);
+        int[] queue = new int[symbols.size()];
+        Set<Long> seen = new HashSet<>();
+        for (int head = 0; head < symbols.size(); head++) {
+            if (offsets[head] == offsets[head + 1]) continue;
+            seen.clear();
+            int tail = 0;
+            queue[tail++] = head;
+            visited[head] = head;
+            for (int q = 0; q < tail; q++) {
+                int from = queue[q];
+                for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+                    int[] body = oldBodies[byHead[i]];
+                    if (body.length == 1 && !symbols.isTerminal(body[0])) {
+                        if (visited[body[0]] != head) {
+                            visited[body[0]] = head;
+                            queue[tail++] = body[0];
+                        }
+                    } else if (seen.add(key(body))) {
+                        addRule(head, body);
+                    }
+                }
+            }
+        }
+    }
+
+    // Step 6: drop non-productive symbols first, then the ones no longer reachable from the start
+    private void removeUselessSymbols() {
+        boolean[] productive = fixedPoint(false);
+        boolean[] keep = new boolean[ruleCount];
+        for (int r = 0; r < ruleCount; r++) {
+            keep[r] = productive[heads[r]];
+            for (int symbol : bodies[r]) keep[r] &= productive[symbol] || symbols.isTerminal(symbol);
+        }
+
+        int[] offsets = new int[symbols.size() + 1];
+        int[] byHead = groupByHead(offsets);
+        boolean[] accessible = new boolean[symbols.size()];
+        int[] queue = new int[symbols.size()];
+        int tail = 0;
+        accessible[start] = true;
+        queue[tail++] = start;
+        for (int q = 0; q < tail; q++) {
+            for (int i = offsets[queue[q]]; i < offsets[queue[q] + 1]; i++) {
+                if (!keep[byHead[i]]) continue;
+                for (int symbol : bodies[byHead[i]]) {
+                    if (!accessible[symbol]) {
+                        accessible[symbol] = true;
+                        queue[tail++] = symbol;
+                    }
+                }
+            }
+        }
+
+        int kept = 0;
+        for (int r = 0; r < ruleCount; r++) {
+            if (!keep[r] || !accessible[heads[r]]) continue;
+            heads[kept] = heads[r];
+            bodies[kept++] = bodies[r];
+        }
+        ruleCount = kept;
+    }
+
+    /**
+     * Worklist fixed point over the rules: a rule fires once all of its non-terminals are marked,
+     * and then marks its head. Every rule is visited once per symbol occurrence.
+     *
+     * @param nullable true to find nullable symbols, where terminals never count, false to find
+     *                 productive symbols, where terminals always count
+     * @return The marked symbols
+     */
+    private boolean[] fixedPoint(boolean nullable) {
+        boolean[] marked = new boolean[symbols.size()];
+        int[] missing = new int[ruleCount];
+        int[] offsets = new int[symbols.size() + 1];
+        for (int r = 0; r < ruleCount; r++) {
+            // A terminal rules out the whole rule before any of its occurrences are counted
+            if (nullable && hasTerminal(bodies[r])) {
+                missing[r] = -1;
+                continue;
+            }
+            for (int symbol : bodies[r]) {
+                if (!symbols.isTerminal(symbol)) {
+                    missing[r]++;
+                    offsets[symbol + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < symbols.size(); i++) offsets[i + 1] += offsets[i];
+        int[] occurrences = new int[offsets[symbols.size()]];
+        int[] fill = offsets.clone();
+        int[] queue = new int[symbols.size()];
+        int tail = 0;
+        for (int r = 0; r < ruleCount; r++) {
+            if (missing[r] < 0) continue;
+            for (int symbol : bodies[r]) {
+                if (!symbols.isTerminal(symbol)) occurrences[fill[symbol]++] = r;
+            }
+            if (missing[r] == 0 && !marked[heads[r]]) {
+                marked[heads[r]] = true;
+                queue[tail++] = heads[r];
+            }
+        }
+        for (int q = 0; q < tail; q++) {
+            int symbol = queue[q];
+            for (int i = offsets[symbol]; i < offsets[symbol + 1]; i++) {
+                int r = occurrences[i];
+                if (--missing[r] == 0 && !marked[heads[r]]) {
+                    marked[heads[r]] = true;
+                    queue[tail++] = heads[r];
+                }
+            }
+        }
+        return marked;
+    }
+
+    private boolean hasTerminal(int[] body) {
+        for (int symbol : body) {
+            if (symbols.isTerminal(symbol)) return true;
+        }
+        return false;
+    }
+
+    // Rule ids sorted by head in CSR form: rules of A are byHead[offsets[A] .. offsets[A + 1])
+    private int[] groupByHead(int[] offsets) {
+        for (int r = 0; r < ruleCount; r++) offsets[heads[r] + 1]++;
+        for (int i = 0; i + 1 < offsets.length; i++) offsets[i + 1] += offsets[i];
+        int[] byHead = new int[ruleCount];
+        int[] fill = offsets.clone();
+        for (int r = 0; r < ruleCount; r++) byHead[fill[heads[r]]++] = r;
+        return byHead;
+    }
+
+    // Bodies have at most two symbols by now
+    private static long key(int[] body) {
+        if (body.length == 0) return -1L;
+        if (body.length == 1) return body[0];
+        return ((long) (body[0] + 1) << 32) | body[1];
+    }
+}
@@ -0,0 +1,607 @@
+package uni.project.grammarAndFA;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.IntBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Int-indexed form of a {@link FiniteAutomaton}.
+ * States and symbols are interned to dense ids, and symbols with the same transitions from every
+ * state are merged into one class, so tables grow with the number of distinct behaviours rather
+ * than with the alphabet. Deterministic automata store the transition function as a flat table
+ * indexed by {@code state * classCount + class}, so matching a string does not allocate.
+ * Non-deterministic automata are simulated on {@code long[]} bitsets of active states, with the
+ * ε-closed successor set of every (state, class) pair precomputed.
+ */
+public final class CompiledAutomaton {
+    static final int DEAD = -1;
+    private static final int BULK_CHUNK = 1024; // Multiple of 64 so chunks never share a result word
+
+    final String[] stateNames;
+    final String[] symbolNames;
+    final int[] symbolClass; // Symbol id -> class id
+    final int classCount;
+    final int[] charToClass; // Indexed by char, DEAD for chars outside the alphabet
+    final int initial;
+    final boolean[] accepting;
+    final int[] transitions; // state * classCount + class -> target state or DEAD, null for NFAs
+
+    // Bitset simulation, only used when the automaton is not deterministic
+    final int words; // Longs per state set
+    final long[] initialSet;
+    final long[] acceptingSet;
+    final long[] successors; // (state * classCount + class) * words -> ε-closed successor set
+
+    // Member sets of determinized states, whose names are only built when asked for
+    private final StateSet[] subsets;
+    private final String[] nfaStateNames;
+    private final int[] nfaNameOrder;
+
+    private volatile long[] liveSet; // States that can still reach an accepting state, see liveSet()
+
+    private CompiledAutomaton(String[] stateNames, String[] symbolNames, int[] symbolClass, int[] charToClass,
+                              int initial, boolean[] accepting, int[] transitions,
+                              long[] initialSet, long[] acceptingSet, long[] successors,
+                              StateSet[] subsets, String[] nfaStateNames) {
+        this.stateNames = stateNames;
+        this.symbolNames = symbolNames;
+        this.symbolClass = symbolClass;
+        this.classCount = symbolClass.length == 0 ? 0 : Arrays.stream(symbolClass).max().getAsInt() + 1;
+        this.charToClass = charToClass;
+        this.initial = initial;
+        this.accepting = accepting;
+        this.transitions = transitions;
+        this.words = wordsFor(stateNames.length);
+        this.initialSet = initialSet;
+        this.acceptingSet = acceptingSet;
+        this.successors = successors;
+        this.subsets = subsets;
+        this.nfaStateNames = nfaStateNames;
+        this.nfaNameOrder = nfaStateNames == null ? null : SubsetConstruction.nameOrder(nfaStateNames);
+    }
+
+    /**
+     * @param alphabet The automaton whose symbols and symbol classes the new one uses
+     * @param transitions Indexed by {@code state * alphabet.classCount + class}
+     */
+    static CompiledAutomaton deterministic(String[] stateNames, CompiledAutomaton alphabet, int initial,
+                                           boolean[] accepting, int[] transitions) {
+        return new CompiledAutomaton(stateNames, alphabet.symbolNames, alphabet.symbolClass, alphabet.charToClass,
+                initial, accepting, transitions, null, null, null, null, null);
+    }
+
+    static CompiledAutomaton determinized(CompiledAutomaton nfa, StateSet[] subsets, boolean[] accepting,
+                                          int[] transitions) {
+        return new CompiledAutomaton(new String[subsets.length], nfa.symbolNames, nfa.symbolClass, nfa.charToClass,
+                0, accepting, transitions, null, null, null, subsets, nfa.stateNames);
+    }
+
+    static int wordsFor(int states) {
+        return (states + 63) >>> 6;
+    }
+
+    /**
+     * Compiles the map-based automaton.
+     *
+     * @param fa The automaton to compile
+     * @param simulate Build the bitset simulation tables even if the automaton is deterministic
+     * @return The compiled automaton
+     */
+    static CompiledAutomaton of(FiniteAutomaton fa, boolean simulate) {
+        return of(TransitionTable.from(fa), simulate);
+    }
+
+    /**
+     * Compiles a transition table.
+     *
+     * @param table The transitions to compile
+     * @param simulate Build the bitset simulation tables even if the table is deterministic
+     * @return The compiled automaton
+     * @throws IllegalArgumentException If simulate is false but the table has ε-transitions or
+     *                                  several targets for a state and symbol
+     */
+    static CompiledAutomaton of(TransitionTable table, boolean simulate) {
+        String[] stateNames = table.stateNames;
+        int numStates = stateNames.length;
+        int numSymbols = table.symbolNames.length;
+        int[] symbolClass = symbolClasses(table);
+        int classCount = numSymbols == 0 ? 0 : Arrays.stream(symbolClass).max().getAsInt() + 1;
+        int[] charToClass = buildCharTable(table.symbolNames, symbolClass);
+
+        // Every class is represented by its first symbol
+        int[] representative = new int[classCount];
+        for (int symbol = numSymbols - 1; symbol >= 0; symbol--) representative[symbolClass[symbol]] = symbol;
+
+        if (!simulate) {
+            requireDeterministic(table);
+            int[] transitions = new int[numStates * classCount];
+            for (int state = 0; state < numStates; state++) {
+                for (int c = 0; c < classCount; c++) {
+                    int row = state * numSymbols + representative[c];
+                    int target;
+                    if (table.dense != null) target = table.dense[row];
+                    else target = table.offsets[row] < table.offsets[row + 1] ? table.targets[table.offsets[row]] : DEAD;
+                    transitions[state * classCount + c] = target;
+                }
+            }
+            return new CompiledAutomaton(stateNames, table.symbolNames, symbolClass, charToClass, table.initial,
+                    table.accepting, transitions, null, null, null, null, null);
+        }
+
+        int words = wordsFor(numStates);
+        long[] acceptingSet = new long[words];
+        for (int state = 0; state < numStates; state++) {
+            if (table.accepting[state]) acceptingSet[state >>> 6] |= 1L << state;
+        }
+
+        long[][] closures = epsilonClosures(table, words);
+        long[] successors = new long[numStates * classCount * words];
+        for (int state = 0; state < numStates; state++) {
+            for (int c = 0; c < classCount; c++) {
+                int row = state * numSymbols + representative[c];
+                int offset = (state * classCount + c) * words;
+                if (table.dense != null) {
+                    if (table.dense[row] == DEAD) continue;
+                    long[] closure = closures[table.dense[row]];
+                    for (int w = 0; w < words; w++) successors[offset + w] |= closure[w];
+                } else {
+                    for (int i = table.offsets[row]; i < table.offsets[row + 1]; i++) {
+                        long[] closure = closures[table.targets[i]];
+                        for (int w = 0; w < words; w++) successors[offset + w] |= closure[w];
+                    }
+                }
+            }
+        }
+
+        return new CompiledAutomaton(stateNames, table.symbolNames, symbolClass, charToClass, table.initial,
+                table.accepting, null, closures[table.initial].clone(), acceptingSet, successors, null, null);
+    }
+
+    // A flat table holds one target per row, anything else would silently change the language
+    private static void requireDeterministic(TransitionTable table) {
+        if (table.dense != null) return;
+        if (table.epsilonTargets != null && table.epsilonTargets.length > 0) {
+            throw new IllegalArgumentException("A table with ε-transitions cannot be compiled as a DFA");
+        }
+        int numSymbols = table.symbolNames.length;
+        for (int row = 0; row + 1 < table.offsets.length; row++) {
+            if (table.offsets[row + 1] - table.offsets[row] > 1) {
+                throw new IllegalArgumentException("State " + table.stateNames[row / numSymbols] + " has several targets on "
+                        + table.symbolNames[row % numSymbols] + ", it cannot be compiled as a DFA");
+            }
+        }
+    }
+
+    /**
+     * Partitions the symbols into classes of symbols whose target rows are equal in every state,
+     * refining the partition one state at a time. Classes are numbered in order of their first symbol.
+     *
+     * @param table The transitions to inspect
+     * @return The class id of every symbol
+     */
+    static int[] symbolClasses(TransitionTable table) {
+        int numStates = table.stateNames.length;
+        int numSymbols = table.symbolNames.length;
+        int[] symbolClass = new int[numSymbols];
+        int classCount = numSymbols == 0 ? 0 : 1;
+
+        // Rows with several targets are interned to ids above every state id
+        Map<IntBuffer, Integer> rowIds = new HashMap<>();
+        Map<Long, Integer> split = new HashMap<>();
+        for (int state = 0; state < numStates && classCount < numSymbols; state++) {
+            split.clear();
+            int[] refined = new int[numSymbols];
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                int row = state * numSymbols + symbol;
+                int rowId;
+                if (table.dense != null) {
+                    rowId = table.dense[row];
+                } else {
+                    int length = table.offsets[row + 1] - table.offsets[row];
+                    if (length == 0) rowId = DEAD;
+                    else if (length == 1) rowId = table.targets[table.offsets[row]];
+                    else {
+                        IntBuffer targets = IntBuffer.wrap(table.targets, table.offsets[row], length);
+                        rowId = numStates + rowIds.computeIfAbsent(targets, key -> rowIds.size());
+                    }
+                }
+                long key = ((long) symbolClass[symbol] << 32) | (rowId & 0xFFFFFFFFL);
+                Integer c = split.get(key);
+                if (c == null) {
+                    c = split.size();
+                    split.put(key, c);
+                }
+                refined[symbol] = c;
+            }
+            symbolClass = refined;
+            classCount = split.size();
+        }
+        return symbolClass;
+    }
+
+    // ε-closure of every single state, by a depth-first walk over the ε-rows of the table
+    private static long[][] epsilonClosures(TransitionTable table, int words) {
+        int numStates = table.stateNames.length;
+        long[][] closures = new long[numStates][];
+        int[] stack = new int[numStates];
+        for (int state = 0; state < numStates; state++) {
+            long[] closure = new long[words];
+            closure[state >>> 6] |= 1L << state;
+            if (table.epsilonOffsets != null) {
+                int size = 0;
+                stack[size++] = state;
+                while (size > 0) {
+                    int current = stack[--size];
+                    for (int i = table.epsilonOffsets[current]; i < table.epsilonOffsets[current + 1]; i++) {
+                        int next = table.epsilonTargets[i];
+                        if ((closure[next >>> 6] & (1L << next)) == 0) {
+                            closure[next >>> 6] |= 1L << next;
+                            stack[size++] = next;
+                        }
+                    }
+                }
+            }
+            closures[state] = closure;
+        }
+        return closures;
+    }
+
+    // Only single-character symbols can be matched against char input
+    private static int[] buildCharTable(String[] symbolNames, int[] symbolClass) {
+        int maxChar = -1;
+        for (String symbol : symbolNames) {
+            if (symbol.length() == 1) maxChar = Math.max(maxChar, symbol.charAt(0));
+        }
+        int[] table = new int[maxChar + 1];
+        Arrays.fill(table, DEAD);
+        for (int i = 0; i < symbolNames.length; i++) {
+            if (symbolNames[i].length() == 1) table[symbolNames[i].charAt(0)] = symbolClass[i];
+        }
+        return table;
+    }
+
+    int classOf(char c) {
+        return c < charToClass.length ? charToClass[c] : DEAD;
+    }
+
+    public boolean isDeterministic() {
+        return transitions != null;
+    }
+
+    public boolean accepts(CharSequence input) {
+        if (transitions == null) return acceptsNondeterministic(input, new long[words], new long[words]);
+        return acceptsDeterministic(input);
+    }
+
+    /**
+     * @return A new incremental matcher positioned at the start state
+     */
+    public AutomatonMatcher matcher() {
+        return new AutomatonMatcher(this);
+    }
+
+    /**
+     * Streams the reader through a matcher without materializing the input.
+     *
+     * @param reader The input, not closed by this method
+     * @return true if the whole input is accepted
+     * @throws IOException if reading fails
+     */
+    public boolean accepts(Reader reader) throws IOException {
+        return matcher().feed(reader).isAccepting();
+    }
+
+    /**
+     * Streams the channel through a matcher without materializing the input,
+     * bytes are matched as the chars 0-255.
+     *
+     * @param channel The input in blocking mode, not closed by this method
+     * @return true if the whole input is accepted
+     * @throws java.nio.channels.IllegalBlockingModeException if the channel is in non-blocking mode
+     * @throws IOException if reading fails
+     */
+    public boolean accepts(ReadableByteChannel channel) throws IOException {
+        return matcher().feed(channel).isAccepting();
+    }
+
+    /**
+     * Matches every input against this automaton, reusing one pair of scratch sets.
+     *
+     * @param inputs The strings to match
+     * @return A bitset whose bit i is set if inputs.get(i) is accepted
+     */
+    public BitSet acceptsAll(List<? extends CharSequence> inputs) {
+        BitSet result = new BitSet(inputs.size());
+        long[] current = new long[words];
+        long[] next = new long[words];
+        for (int i = 0; i < inputs.size(); i++) {
+            if (accepts(inputs.get(i), current, next)) result.set(i);
+        }
+        return result;
+    }
+
+    /**
+     * Matches every input against this automaton, reusing one pair of scratch sets.
+     *
+     * @param inputs The strings to match
+     * @return Whether each input is accepted
+     */
+    public boolean[] acceptsAll(CharSequence[] inputs) {
+        boolean[] result = new boolean[inputs.length];
+        long[] current = new long[words];
+        long[] next = new long[words];
+        for (int i = 0; i < inputs.length; i++) result[i] = accepts(inputs[i], current, next);
+        return result;
+    }
+
+    /**
+     * Matches the inputs of a stream in encounter order. The stream is consumed sequentially,
+     * use {@link #acceptsAllParallel(List)} to spread the work across cores.
+     *
+     * @param inputs The strings to match
+     * @return A bitset whose bit i is set if the i-th input is accepted
+     */
+    public BitSet acceptsAll(Stream<? extends CharSequence> inputs) {
+        BitSet result = new BitSet();
+        long[] current = new long[words];
+        long[] next = new long[words];
+        Iterator<? extends CharSequence> iterator = inputs.sequential().iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (accepts(iterator.next(), current, next)) result.set(i);
+        }
+        return result;
+    }
+
+    /**
+     * Parallel variant of {@link #acceptsAll(List)}. The inputs are cut into chunks of
+     * {@value #BULK_CHUNK} strings, each matched by one task with its own scratch sets
+     * and writing its own words of the result.
+     *
+     * @param inputs The strings to match, should support fast random access
+     * @return A bitset whose bit i is set if inputs.get(i) is accepted
+     */
+    public BitSet acceptsAllParallel(List<? extends CharSequence> inputs) {
+        int size = inputs.size();
+        long[] bits = new long[(size + 63) >>> 6];
+        int chunks = (size + BULK_CHUNK - 1) / BULK_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long[] current = new long[words];
+            long[] next = new long[words];
+            int end = Math.min(size, (chunk + 1) * BULK_CHUNK);
+            for (int i = chunk * BULK_CHUNK; i < end; i++) {
+                if (accepts(inputs.get(i), current, next)) bits[i >>> 6] |= 1L << i;
+            }
+        });
+        return BitSet.valueOf(bits);
+    }
+
+    /**
+     * Parallel variant of {@link #acceptsAll(CharSequence[])}.
+     *
+     * @param inputs The strings to match
+     * @return Whether each input is accepted
+     */
+    public boolean[] acceptsAllParallel(CharSequence[] inputs) {
+        boolean[] result = new boolean[inputs.length];
+        int chunks = (inputs.length + BULK_CHUNK - 1) / BULK_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long[] current = new long[words];
+            long[] next = new long[words];
+            int end = Math.min(inputs.length, (chunk + 1) * BULK_CHUNK);
+            for (int i = chunk * BULK_CHUNK; i < end; i++) result[i] = accepts(inputs[i], current, next);
+        });
+        return result;
+    }
+
+    // Scratch sets are only touched by non-deterministic automata
+    private boolean accepts(CharSequence input, long[] current, long[] next) {
+        if (transitions == null) return acceptsNondeterministic(input, current, next);
+        return acceptsDeterministic(input);
+    }
+
+    private boolean acceptsDeterministic(CharSequence input) {
+        int state = initial;
+        for (int i = 0; i < input.length(); i++) {
+            int c = classOf(input.charAt(i));
+            if (c == DEAD) return false;
+            state = transitions[state * classCount + c];
+            if (state == DEAD) return false;
+        }
+        return accepting[state];
+    }
+
+    /**
+     * Simulates the automaton on bitsets of active states.
+     *
+     * @param input The string to match
+     * @param current Scratch set of {@code words} longs
+     * @param next Scratch set of {@code words} longs
+     * @return true if some accepting state is active after reading the whole input
+     */
+    boolean acceptsNondeterministic(CharSequence input, long[] current, long[] next) {
+        System.arraycopy(initialSet, 0, current, 0, words);
+        return simulate(input, 0, current, next);
+    }
+
+    // Continues the bitset simulation from the set in current at position from of the input
+    boolean simulate(CharSequence input, int from, long[] current, long[] next) {
+        for (int i = from; i < input.length(); i++) {
+            int c = classOf(input.charAt(i));
+            if (c == DEAD || !step(current, c, next)) return false;
+            long[] tmp = current;
+            current = next;
+            next = tmp;
+        }
+        return intersects(current, acceptingSet);
+    }
+
+    // Writes the successors of the active set on a symbol class into next, returns false if next is empty
+    boolean step(long[] current, int symbolClass, long[] next) {
+        Arrays.fill(next, 0L);
+        int rowStride = classCount * words;
+        for (int w = 0; w < words; w++) {
+            long bits = current[w];
+            while (bits != 0) {
+                int state = (w << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int offset = state * rowStride + symbolClass * words;
+                for (int k = 0; k < words; k++) next[k] |= successors[offset + k];
+            }
+        }
+        for (long word : next) {
+            if (word != 0) return true;
+        }
+        return false;
+    }
+
+    static boolean intersects(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) {
+            if ((a[w] & b[w]) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Converts a deterministic compiled automaton back to the map-based representation.
+     *
+     * @return An equivalent FiniteAutomaton
+     * @throws IllegalStateException if this automaton is not deterministic
+     */
+    public FiniteAutomaton toFiniteAutomaton() {
+        return toTransitionTable().toFiniteAutomaton();
+    }
+
+    /**
+     * @return The dense transition table of this deterministic automaton
+     * @throws IllegalStateException if this automaton is not deterministic
+     */
+    public TransitionTable toTransitionTable() {
+        if (transitions == null) throw new IllegalStateException("Only deterministic automata can be converted back");
+        int numSymbols = symbolNames.length;
+        String[] names = new String[stateNames.length];
+        int[] dense = new int[stateNames.length * numSymbols];
+        for (int state = 0; state < names.length; state++) {
+            names[state] = stateName(state);
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                dense[state * numSymbols + symbol] = transitions[state * classCount + symbolClass[symbol]];
+            }
+        }
+        return TransitionTable.deterministic(names, symbolNames, initial, accepting, dense);
+    }
+
+    /**
+     * The states from which an accepting state can still be reached, built on first use by a
+     * backwards search from the accepting states. The field is volatile so a thread that sees
+     * the array also sees its contents.
+     *
+     * @return A set of {@link #words} longs, bit i is set if state i is live
+     */
+    long[] liveSet() {
+        long[] live = liveSet;
+        if (live == null) {
+            live = coReachable();
+            liveSet = live;
+        }
+        return live;
+    }
+
+    private long[] coReachable() {
+        int states = stateNames.length;
+        int rows = states * classCount;
+        int[] targets = new int[Math.max(1, states)];
+
+        // Reverse edges in CSR form, counted in a first pass and filled in a second
+        int[] offsets = new int[states + 1];
+        for (int row = 0; row < rows; row++) {
+            int count = rowTargets(row, targets);
+            for (int i = 0; i < count; i++) offsets[targets[i] + 1]++;
+        }
+        for (int i = 0; i < states; i++) offsets[i + 1] += offsets[i];
+        int[] sources = new int[offsets[states]];
+        int[] fill = offsets.clone();
+        for (int row = 0; row < rows; row++) {
+            int count = rowTargets(row, targets);
+            for (int i = 0; i < count; i++) sources[fill[targets[i]]++] = row / classCount;
+        }
+
+        long[] live = new long[words];
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        for (int state = 0; state < states; state++) {
+            if (accepting[state]) {
+                live[state >>> 6] |= 1L << state;
+                queue[tail++] = state;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+                int source = sources[i];
+                if ((live[source >>> 6] & (1L << source)) == 0) {
+                    live[source >>> 6] |= 1L << source;
+                    queue[tail++] = source;
+                }
+            }
+        }
+        return live;
+    }
+
+    // Writes the targets of one (state, class) row to out and returns how many there are
+    private int rowTargets(int row, int[] out) {
+        if (transitions != null) {
+            if (transitions[row] == DEAD) return 0;
+            out[0] = transitions[row];
+            return 1;
+        }
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            for (long bits = successors[row * words + w]; bits != 0; bits &= bits - 1) {
+                out[count++] = (w << 6) | Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Names of determinized states are built on first use, which is safe across threads: everything
+     * they are built from is final, and a String is immutable, so a thread either sees a complete name
+     * or null and builds the same name again.
+     */
+    String stateName(int state) {
+        String name = stateNames[state];
+        if (name == null) {
+            name = SubsetConstruction.nameOf(subsets[state], nfaStateNames, nfaNameOrder);
+            stateNames[state] = name;
+        }
+        return name;
+    }
+
+    // The NFA states a determinized state stands for, null for automata that were not determinized
+    StateSet subset(int state) {
+        return subsets == null ? null : subsets[state];
+    }
+
+    public int stateCount() {
+        return stateNames.length;
+    }
+
+    public int symbolCount() {
+        return symbolNames.length;
+    }
+
+    /**
+     * @return The number of symbol classes, the width of the transition tables
+     */
+    public int classCount() {
+        return classCount;
+    }
+}
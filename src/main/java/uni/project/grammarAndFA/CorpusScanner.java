@@ -0,0 +1,189 @@
+package uni.project.grammarAndFA;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks every line of a file against an automaton without creating strings.
+ * The file is split at newline boundaries into segments that are memory-mapped with
+ * {@link FileChannel#map} and scanned in parallel, running the DFA table directly over the bytes
+ * (read as the chars 0-255). Lines end with '\n', a '\r' right before it is not part of the line.
+ */
+public final class CorpusScanner {
+    private static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    private final CompiledAutomaton dfa;
+    private final int[] byteToClass = new int[256];
+    private final long segmentSize;
+
+    /**
+     * @param automaton The automaton to check lines against, determinized here if it is an NFA
+     */
+    public CorpusScanner(CompiledAutomaton automaton) {
+        this(automaton, DEFAULT_SEGMENT_SIZE);
+    }
+
+    CorpusScanner(CompiledAutomaton automaton, long segmentSize) {
+        this.dfa = automaton.isDeterministic() ? automaton : SubsetConstruction.determinize(automaton);
+        this.segmentSize = segmentSize;
+        for (int b = 0; b < 256; b++) byteToClass[b] = dfa.classOf((char) b);
+    }
+
+    /**
+     * Scans the file line by line.
+     *
+     * @param file The file to scan
+     * @return The start offsets of the accepted and of the rejected lines, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public ScanResult scan(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> segments = splitAtNewlines(channel);
+            try {
+                List<ScanResult> results = segments.parallelStream().map(segment -> {
+                    try {
+                        return scanSegment(channel, segment[0], segment[1]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).toList();
+                return ScanResult.concat(results);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Segment boundaries always fall right after a '\n', so no line spans two segments
+    private List<long[]> splitAtNewlines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> segments = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + segmentSize);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                int newline = -1;
+                for (int i = 0; i < read && newline < 0; i++) {
+                    if (probe.get(i) == '\n') newline = i;
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += Math.max(read, 0);
+            }
+            end = Math.min(end, size);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line at offset " + start + " is too long to be mapped");
+            }
+            segments.add(new long[]{start, end});
+            start = end;
+        }
+        return segments;
+    }
+
+    private ScanResult scanSegment(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int length = (int) (end - start);
+        int numClasses = dfa.classCount;
+        int[] transitions = dfa.transitions;
+        OffsetList accepted = new OffsetList();
+        OffsetList rejected = new OffsetList();
+
+        int lineStart = 0;
+        int state = dfa.initial;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes.get(i);
+            if (b == '\n' || (b == '\r' && i + 1 < length && bytes.get(i + 1) == '\n')) {
+                if (b == '\r') i++;
+                boolean accepts = state != CompiledAutomaton.DEAD && dfa.accepting[state];
+                (accepts ? accepted : rejected).add(start + lineStart);
+                lineStart = i + 1;
+                state = dfa.initial;
+                continue;
+            }
+            if (state == CompiledAutomaton.DEAD) continue;
+            int symbol = byteToClass[b & 0xFF];
+            state = symbol == CompiledAutomaton.DEAD ? CompiledAutomaton.DEAD : transitions[state * numClasses + symbol];
+        }
+        // Last line of the file without a trailing newline
+        if (lineStart < length) {
+            boolean accepts = state != CompiledAutomaton.DEAD && dfa.accepting[state];
+            (accepts ? accepted : rejected).add(start + lineStart);
+        }
+        return new ScanResult(accepted.toArray(), rejected.toArray());
+    }
+
+    public static final class ScanResult {
+        private final long[] acceptedOffsets;
+        private final long[] rejectedOffsets;
+
+        ScanResult(long[] acceptedOffsets, long[] rejectedOffsets) {
+            this.acceptedOffsets = acceptedOffsets;
+            this.rejectedOffsets = rejectedOffsets;
+        }
+
+        static ScanResult concat(List<ScanResult> parts) {
+            OffsetList accepted = new OffsetList();
+            OffsetList rejected = new OffsetList();
+            for (ScanResult part : parts) {
+                accepted.addAll(part.acceptedOffsets);
+                rejected.addAll(part.rejectedOffsets);
+            }
+            return new ScanResult(accepted.toArray(), rejected.toArray());
+        }
+
+        /**
+         * @return Start offsets of the accepted lines, ascending
+         */
+        public long[] acceptedOffsets() {
+            return acceptedOffsets.clone();
+        }
+
+        /**
+         * @return Start offsets of the rejected lines, ascending
+         */
+        public long[] rejectedOffsets() {
+            return rejectedOffsets.clone();
+        }
+
+        public int acceptedCount() {
+            return acceptedOffsets.length;
+        }
+
+        public int rejectedCount() {
+            return rejectedOffsets.length;
+        }
+    }
+
+    private static final class OffsetList {
+        private long[] data = new long[64];
+        private int size;
+
+        void add(long offset) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = offset;
+        }
+
+        void addAll(long[] offsets) {
+            if (size + offsets.length > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + offsets.length));
+            System.arraycopy(offsets, 0, data, size, offsets.length);
+            size += offsets.length;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cocke–Younger–Kasami recognizer and parser for grammars in Chomsky Normal Form.
+ * Non-terminals are interned to ids and every table cell is a {@code long[]} bitset of the
+ * non-terminals deriving that substring. Binary productions A → BC are grouped by B, so the inner
+ * loop walks the set bits of the left cell and tests C against the right cell word by word.
+ * Input chars are the terminals, so every terminal must be a single char;
+ * {@link Grammar#toCykParser()} spells longer terminals out char by char first.
+ * <p>
+ * The table is kept twice, once with the cells of each start position next to each other and once
+ * with the cells of each end position next to each other, so both the left and the right children
+ * of a cell are read sequentially. Cells of equal span length (one anti-diagonal) only depend on
+ * shorter spans, which lets the parallel mode fill every anti-diagonal across a ForkJoinPool.
+ */
+public final class CykParser {
+    // Anti-diagonal slices below this many cells are filled by a single task
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    private final String[] nonTerminals;
+    private final int start;
+    private final int words; // Longs per cell
+    private final boolean acceptsEmpty;
+
+    private final long[][] terminalSets; // Indexed by char: non-terminals A with A → c, null if none
+
+    // A → BC grouped by B in CSR form: rules of B are [ruleOffsets[B], ruleOffsets[B + 1])
+    private final int[] ruleOffsets;
+    private final int[] ruleRight; // C
+    private final int[] ruleHead; // A
+
+    /**
+     * @param cnf A grammar in Chomsky Normal Form
+     * @throws IllegalArgumentException If a rule is not in CNF or has a terminal longer than one char
+     */
+    CykParser(Grammar cnf) {
+        SymbolTable symbols = cnf.symbols;
+        int[] ids = new int[symbols.size()]; // Symbol id to non-terminal id, -1 for terminals
+        int count = 0;
+        for (int symbol = 0; symbol < symbols.size(); symbol++) ids[symbol] = symbols.isTerminal(symbol) ? -1 : count++;
+        this.nonTerminals = new String[count];
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            if (ids[symbol] >= 0) nonTerminals[ids[symbol]] = symbols.name(symbol);
+        }
+        this.start = ids[cnf.start];
+        this.words = CompiledAutomaton.wordsFor(nonTerminals.length);
+
+        int maxChar = -1;
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            if (ids[symbol] < 0 && symbols.name(symbol).length() == 1) maxChar = Math.max(maxChar, symbols.name(symbol).charAt(0));
+        }
+        this.terminalSets = new long[maxChar + 1][];
+
+        // Count binary rules per left child first, then fill the CSR arrays
+        boolean empty = false;
+        int[] counts = new int[nonTerminals.length + 1];
+        int[][] binary = new int[16][];
+        int binaryCount = 0;
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            int head = ids[symbol];
+            for (int r = cnf.ruleOffsets[symbol]; r < cnf.ruleOffsets[symbol + 1]; r++) {
+                int[] body = cnf.ruleBodies[r];
+                if (body.length == 0) {
+                    if (head != start) throw new IllegalArgumentException("Only the start variable may derive ε in CNF: " + symbols.name(symbol));
+                    empty = true;
+                    continue;
+                }
+                if (body.length == 1 && ids[body[0]] < 0) {
+                    String terminal = symbols.name(body[0]);
+                    if (terminal.length() != 1) {
+                        throw new IllegalArgumentException("CYK matches one char per terminal, not \"" + terminal + "\": "
+                                + symbols.name(symbol) + " → " + terminal);
+                    }
+                    char c = terminal.charAt(0);
+                    if (terminalSets[c] == null) terminalSets[c] = new long[words];
+                    terminalSets[c][head >>> 6] |= 1L << head;
+                    continue;
+                }
+                if (body.length != 2 || ids[body[0]] < 0 || ids[body[1]] < 0) {
+                    throw new IllegalArgumentException("Production is not in Chomsky Normal Form: "
+                            + symbols.name(symbol) + " → " + symbols.join(body));
+                }
+                if (binaryCount == binary.length) binary = Arrays.copyOf(binary, binaryCount * 2);
+                binary[binaryCount++] = new int[]{ids[body[0]], ids[body[1]], head};
+                counts[ids[body[0]] + 1]++;
+            }
+        }
+        this.acceptsEmpty = empty;
+
+        for (int i = 0; i < nonTerminals.length; i++) counts[i + 1] += counts[i];
+        this.ruleOffsets = counts;
+        this.ruleRight = new int[binaryCount];
+        this.ruleHead = new int[binaryCount];
+        int[] fill = counts.clone();
+        for (int i = 0; i < binaryCount; i++) {
+            int position = fill[binary[i][0]]++;
+            ruleRight[position] = binary[i][1];
+            ruleHead[position] = binary[i][2];
+        }
+    }
+
+    /**
+     * @param input The sentence to check, one terminal per char
+     * @return true if the grammar derives the input
+     */
+    public boolean accepts(CharSequence input) {
+        return accepts(input, null);
+    }
+
+    /**
+     * Parallel variant of {@link #accepts(CharSequence)}: the cells of every anti-diagonal are
+     * filled concurrently. The table, and so the result, is the same as the sequential one.
+     *
+     * @param input The sentence to check, one terminal per char
+     * @param pool The pool to fill anti-diagonals on, null to fill sequentially
+     * @return true if the grammar derives the input
+     */
+    public boolean accepts(CharSequence input, ForkJoinPool pool) {
+        int n = input.length();
+        if (n == 0) return acceptsEmpty;
+        Table table = fill(input, pool);
+        return table != null && contains(table.byStart, table.startCell(0, n), start);
+    }
+
+    /**
+     * Recognizes the input and rebuilds one derivation from the table.
+     *
+     * @param input The sentence to parse, one terminal per char
+     * @return The parse tree in bracket form, for example {@code S(A(a) B(b))},
+     *         or null if the grammar does not derive the input
+     */
+    public String parse(CharSequence input) {
+        int n = input.length();
+        if (n == 0) return acceptsEmpty ? nonTerminals[start] + "(ε)" : null;
+        Table table = fill(input, null);
+        if (table == null || !contains(table.byStart, table.startCell(0, n), start)) return null;
+
+        // Explicit stack of pending nodes {non-terminal, start, length} and closing brackets
+        StringBuilder tree = new StringBuilder();
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(new int[]{start, 0, n});
+        while (!stack.isEmpty()) {
+            Object top = stack.pop();
+            if (top instanceof String) {
+                tree.append((String) top);
+                continue;
+            }
+            int[] node = (int[]) top;
+            int head = node[0], from = node[1], length = node[2];
+            tree.append(nonTerminals[head]).append('(');
+            if (length == 1) {
+                tree.append(input.charAt(from)).append(')');
+                continue;
+            }
+            int[] children = split(table, head, from, length);
+            stack.push(")");
+            stack.push(new int[]{children[1], from + children[2], length - children[2]});
+            stack.push(" ");
+            stack.push(new int[]{children[0], from, children[2]});
+        }
+        return tree.toString();
+    }
+
+    // Finds a rule head → BC and a split point that derive the span, as {B, C, left length}
+    private int[] split(Table table, int head, int from, int length) {
+        for (int leftLength = 1; leftLength < length; leftLength++) {
+            int leftCell = table.startCell(from, leftLength);
+            int rightCell = table.startCell(from + leftLength, length - leftLength);
+            for (int left = 0; left < nonTerminals.length; left++) {
+                if (!contains(table.byStart, leftCell, left)) continue;
+                for (int r = ruleOffsets[left]; r < ruleOffsets[left + 1]; r++) {
+                    if (ruleHead[r] == head && contains(table.byStart, rightCell, ruleRight[r])) {
+                        return new int[]{left, ruleRight[r], leftLength};
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No derivation of " + nonTerminals[head] + " found in the table");
+    }
+
+    /**
+     * Fills the table bottom-up, one span length (anti-diagonal) at a time.
+     *
+     * @param pool The pool to fill long anti-diagonals on, or null
+     * @return The table, or null if some char has no terminal production
+     */
+    private Table fill(CharSequence input, ForkJoinPool pool) {
+        int n = input.length();
+        Table table = new Table(n, words);
+        for (int i = 0; i < n; i++) {
+            char c = input.charAt(i);
+            long[] set = c < terminalSets.length ? terminalSets[c] : null;
+            if (set == null) return null;
+            table.store(set, i, 1);
+        }
+
+        for (int length = 2; length <= n; length++) {
+            int cells = n - length + 1;
+            if (pool == null || cells <= PARALLEL_THRESHOLD) {
+                long[] scratch = new long[words];
+                for (int from = 0; from < cells; from++) fillCell(table, from, length, scratch);
+            } else {
+                pool.invoke(new FillDiagonal(table, length, 0, cells));
+            }
+        }
+        return table;
+    }
+
+    private void fillCell(Table table, int from, int length, long[] cell) {
+        Arrays.fill(cell, 0L);
+        long[] byStart = table.byStart;
+        long[] byEnd = table.byEnd;
+        // Left children start at from and grow, right children end at from + length and shrink
+        int leftCell = table.startCell(from, 1);
+        int rightCell = table.endCell(from + length, length - 1);
+        for (int leftLength = 1; leftLength < length; leftLength++, leftCell += words, rightCell -= words) {
+            for (int w = 0; w < words; w++) {
+                long bits = byStart[leftCell + w];
+                while (bits != 0) {
+                    int left = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (int r = ruleOffsets[left]; r < ruleOffsets[left + 1]; r++) {
+                        int right = ruleRight[r];
+                        if ((byEnd[rightCell + (right >>> 6)] & (1L << right)) != 0) {
+                            int head = ruleHead[r];
+                            cell[head >>> 6] |= 1L << head;
+                        }
+                    }
+                }
+            }
+        }
+        table.store(cell, from, length);
+    }
+
+    @SuppressWarnings("serial") // Tasks only live within one pool invocation and are never serialized
+    private final class FillDiagonal extends RecursiveAction {
+        private final Table table;
+        private final int length;
+        private final int from;
+        private final int to;
+
+        FillDiagonal(Table table, int length, int from, int to) {
+            this.table = table;
+            this.length = length;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FillDiagonal(table, length, from, middle), new FillDiagonal(table, length, middle, to));
+                return;
+            }
+            long[] scratch = new long[words];
+            for (int start = from; start < to; start++) fillCell(table, start, length, scratch);
+        }
+    }
+
+    /**
+     * The triangular table stored twice. In byStart the cells (from, 1), (from, 2), ... are
+     * contiguous, in byEnd the cells (end - 1, 1), (end - 2, 2), ... ending at the same position are.
+     */
+    private static final class Table {
+        final int n;
+        final int words;
+        final long[] byStart;
+        final long[] byEnd;
+
+        /**
+         * @throws IllegalArgumentException If the table of n chars does not fit into an array
+         */
+        Table(int n, int words) {
+            long size = (long) n * (n + 1) / 2 * words;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Input of " + n + " chars needs " + size + " table words, more than an array holds");
+            }
+            this.n = n;
+            this.words = words;
+            this.byStart = new long[(int) size];
+            this.byEnd = new long[(int) size];
+        }
+
+        // Row from holds the lengths 1 .. n - from; positions are multiplied in long, only the result fits an int
+        int startCell(int from, int length) {
+            return (int) (((long) from * n - (long) from * (from - 1) / 2 + length - 1) * words);
+        }
+
+        // Row end holds the lengths 1 .. end
+        int endCell(int end, int length) {
+            return (int) (((long) (end - 1) * end / 2 + length - 1) * words);
+        }
+
+        void store(long[] cell, int from, int length) {
+            System.arraycopy(cell, 0, byStart, startCell(from, length), words);
+            System.arraycopy(cell, 0, byEnd, endCell(from + length, length), words);
+        }
+    }
+
+    private static boolean contains(long[] table, int cell, int nonTerminal) {
+        return (table[cell + (nonTerminal >>> 6)] & (1L << nonTerminal)) != 0;
+    }
+
+    public int nonTerminalCount() {
+        return nonTerminals.length;
+    }
+
+    public int binaryRuleCount() {
+        return ruleHead.length;
+    }
+}
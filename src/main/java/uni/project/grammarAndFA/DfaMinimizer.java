@@ -0,0 +1,254 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+
+/**
+ * Hopcroft's O(n log n) DFA minimization over the int-indexed transition table.
+ * Unreachable and dead states are pruned first, missing transitions are routed to a
+ * single sink state during refinement and dropped again in the result.
+ */
+final class DfaMinimizer {
+    private DfaMinimizer() {
+    }
+
+    static CompiledAutomaton minimize(CompiledAutomaton dfa) {
+        int numClasses = dfa.classCount;
+
+        // Step 1: keep only states reachable from the start that can still reach a final state
+        int[] live = liveStates(dfa);
+        int n = 0;
+        int[] newId = new int[dfa.stateNames.length];
+        Arrays.fill(newId, CompiledAutomaton.DEAD);
+        for (int state = 0; state < live.length; state++) {
+            if (live[state] == 3) newId[state] = n++;
+        }
+        if (newId[dfa.initial] == CompiledAutomaton.DEAD) {
+            // Empty language: a single non-final start state without transitions
+            return CompiledAutomaton.deterministic(new String[]{dfa.stateName(dfa.initial)}, dfa, 0,
+                    new boolean[1], filled(numClasses, CompiledAutomaton.DEAD));
+        }
+
+        // Step 2: complete the pruned automaton with a sink state n
+        int total = n + 1;
+        int sink = n;
+        int[] delta = filled(total * numClasses, sink);
+        boolean[] accepting = new boolean[total];
+        int[] original = new int[n];
+        for (int state = 0; state < newId.length; state++) {
+            int id = newId[state];
+            if (id == CompiledAutomaton.DEAD) continue;
+            original[id] = state;
+            accepting[id] = dfa.accepting[state];
+            for (int symbol = 0; symbol < numClasses; symbol++) {
+                int target = dfa.transitions[state * numClasses + symbol];
+                if (target != CompiledAutomaton.DEAD && newId[target] != CompiledAutomaton.DEAD) {
+                    delta[id * numClasses + symbol] = newId[target];
+                }
+            }
+        }
+
+        // Step 3: refine the partition {final, non-final}
+        int[] blockOf = refine(delta, accepting, total, numClasses);
+
+        // Step 4: number the blocks in BFS order from the start block, skipping the sink block
+        int[] blockId = filled(total, CompiledAutomaton.DEAD);
+        int[] representative = new int[total];
+        int[] queue = new int[total];
+        int head = 0, tail = 0, blocks = 0;
+        int startBlock = blockOf[newId[dfa.initial]];
+        blockId[startBlock] = blocks++;
+        representative[0] = newId[dfa.initial];
+        queue[tail++] = newId[dfa.initial];
+        while (head < tail) {
+            int state = queue[head++];
+            for (int symbol = 0; symbol < numClasses; symbol++) {
+                int target = delta[state * numClasses + symbol];
+                int block = blockOf[target];
+                if (target == sink || blockId[block] != CompiledAutomaton.DEAD) continue;
+                blockId[block] = blocks;
+                representative[blocks++] = target;
+                queue[tail++] = target;
+            }
+        }
+
+        String[] names = new String[blocks];
+        boolean[] minAccepting = new boolean[blocks];
+        int[] minDelta = filled(blocks * numClasses, CompiledAutomaton.DEAD);
+        for (int block = 0; block < blocks; block++) {
+            int state = representative[block];
+            names[block] = dfa.stateName(original[state]);
+            minAccepting[block] = accepting[state];
+            for (int symbol = 0; symbol < numClasses; symbol++) {
+                int target = delta[state * numClasses + symbol];
+                if (target != sink) minDelta[block * numClasses + symbol] = blockId[blockOf[target]];
+            }
+        }
+        return CompiledAutomaton.deterministic(names, dfa, 0, minAccepting, minDelta);
+    }
+
+    // Bit 1: reachable from the start state, bit 2: a final state is reachable from it
+    private static int[] liveStates(CompiledAutomaton dfa) {
+        int states = dfa.stateNames.length;
+        int numClasses = dfa.classCount;
+        int[] flags = new int[states];
+        int[] queue = new int[states];
+
+        int head = 0, tail = 0;
+        flags[dfa.initial] = 1;
+        queue[tail++] = dfa.initial;
+        while (head < tail) {
+            int state = queue[head++];
+            for (int symbol = 0; symbol < numClasses; symbol++) {
+                int target = dfa.transitions[state * numClasses + symbol];
+                if (target != CompiledAutomaton.DEAD && (flags[target] & 1) == 0) {
+                    flags[target] |= 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        // Reverse edges in CSR form for the backwards search
+        int[] offsets = new int[states + 1];
+        for (int target : dfa.transitions) {
+            if (target != CompiledAutomaton.DEAD) offsets[target + 1]++;
+        }
+        for (int i = 0; i < states; i++) offsets[i + 1] += offsets[i];
+        int[] sources = new int[offsets[states]];
+        int[] fill = offsets.clone();
+        for (int i = 0; i < dfa.transitions.length; i++) {
+            int target = dfa.transitions[i];
+            if (target != CompiledAutomaton.DEAD) sources[fill[target]++] = i / numClasses;
+        }
+
+        head = 0;
+        tail = 0;
+        for (int state = 0; state < states; state++) {
+            if (dfa.accepting[state]) {
+                flags[state] |= 2;
+                queue[tail++] = state;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+                int source = sources[i];
+                if ((flags[source] & 2) == 0) {
+                    flags[source] |= 2;
+                    queue[tail++] = source;
+                }
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Hopcroft partition refinement of a complete DFA.
+     *
+     * @param delta Complete transition table, state * numClasses + symbol -> target
+     * @param accepting Final state flags
+     * @param states Number of states
+     * @param numClasses Number of symbol classes
+     * @return The block of every state, equivalent states share a block
+     */
+    private static int[] refine(int[] delta, boolean[] accepting, int states, int numClasses) {
+        // Inverse transitions per (class, target) in CSR form
+        int[] invOffsets = new int[numClasses * states + 1];
+        for (int i = 0; i < delta.length; i++) invOffsets[(i % numClasses) * states + delta[i] + 1]++;
+        for (int i = 0; i < numClasses * states; i++) invOffsets[i + 1] += invOffsets[i];
+        int[] invSources = new int[delta.length];
+        int[] fill = invOffsets.clone();
+        for (int i = 0; i < delta.length; i++) {
+            invSources[fill[(i % numClasses) * states + delta[i]]++] = i / numClasses;
+        }
+
+        // Blocks are contiguous ranges of the elements array
+        int[] elements = new int[states];
+        int[] location = new int[states];
+        int[] blockOf = new int[states];
+        int[] first = new int[states];
+        int[] end = new int[states];
+        int[] marked = new int[states];
+        int blockCount = 0;
+
+        int position = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int start = position;
+            for (int state = 0; state < states; state++) {
+                if (accepting[state] == (pass == 0)) {
+                    elements[position] = state;
+                    location[state] = position++;
+                    blockOf[state] = blockCount;
+                }
+            }
+            if (position > start) {
+                first[blockCount] = start;
+                end[blockCount++] = position;
+            }
+        }
+
+        int[] worklist = new int[states];
+        int pending = 0;
+        for (int block = 0; block < blockCount; block++) {
+            worklist[pending++] = block;
+        }
+
+        int[] splitter = new int[states];
+        int[] touched = new int[states];
+        while (pending > 0) {
+            int b = worklist[--pending];
+            int splitterSize = end[b] - first[b];
+            System.arraycopy(elements, first[b], splitter, 0, splitterSize);
+
+            for (int symbol = 0; symbol < numClasses; symbol++) {
+                int touchedCount = 0;
+
+                // Move every predecessor to the marked prefix of its block
+                for (int i = 0; i < splitterSize; i++) {
+                    int row = symbol * states + splitter[i];
+                    for (int j = invOffsets[row]; j < invOffsets[row + 1]; j++) {
+                        int p = invSources[j];
+                        int x = blockOf[p];
+                        int boundary = first[x] + marked[x];
+                        if (location[p] < boundary) continue;
+                        if (marked[x] == 0) touched[touchedCount++] = x;
+                        int other = elements[boundary];
+                        elements[boundary] = p;
+                        elements[location[p]] = other;
+                        location[other] = location[p];
+                        location[p] = boundary;
+                        marked[x]++;
+                    }
+                }
+
+                // Split every touched block, the smaller half becomes the new block and a splitter
+                for (int i = 0; i < touchedCount; i++) {
+                    int x = touched[i];
+                    int m = marked[x];
+                    marked[x] = 0;
+                    int size = end[x] - first[x];
+                    if (m == size) continue;
+
+                    int y = blockCount++;
+                    if (m <= size - m) {
+                        first[y] = first[x];
+                        end[y] = first[x] + m;
+                        first[x] = end[y];
+                    } else {
+                        first[y] = first[x] + m;
+                        end[y] = end[x];
+                        end[x] = first[y];
+                    }
+                    for (int k = first[y]; k < end[y]; k++) blockOf[elements[k]] = y;
+                    worklist[pending++] = y;
+                }
+            }
+        }
+        return blockOf;
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+}
@@ -0,0 +1,778 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Earley recognizer that works directly on the productions of a {@link Grammar}, without CNF.
+ * Every rule is stored in one flat symbol array closed by an end marker, so a dotted rule is just
+ * the index of the symbol after the dot, and an item (dot, origin) is packed into one {@code long}.
+ * <p>
+ * Nullable non-terminals are handled with the Aycock–Horspool predictor: predicting a nullable
+ * symbol also moves the dot over it, so completions never have to look back into the current set.
+ * Right recursion is kept linear with Leo's optimization: when a completed symbol has exactly one
+ * item waiting for it as its last symbol, only the topmost item of that deterministic chain is added.
+ * <p>
+ * Terminals are matched against the input as strings, so multi-char terminals are supported.
+ */
+public final class EarleyParser {
+    private static final int END = -1; // Closes the symbols of every rule
+    private static final long NONE = -1L;
+    private static final long UNKNOWN = -2L;
+
+    private final String[] nonTerminals;
+    private final String[] terminals;
+    private final int start;
+    private final boolean[] nullable;
+
+    // Rules of A are [ruleOffsets[A], ruleOffsets[A + 1]), rule r starts at dot position ruleDot[r]
+    private final int[] ruleOffsets;
+    private final int[] ruleDot;
+    private final int[] ruleHead;
+    // All right-hand sides back to back, non-terminal ids as is and terminal t as -(t + 2)
+    private final int[] symbols;
+    private final int[] ruleOfDot;
+    private final int longestTerminal;
+
+    EarleyParser(Grammar grammar) {
+        grammar.requireContextFree();
+        // Non-terminals and terminals get dense ids of their own
+        SymbolTable table = grammar.symbols;
+        int[] ids = new int[table.size()];
+        int nonTerminalCount = 0;
+        int terminalCount = 0;
+        for (int symbol = 0; symbol < table.size(); symbol++) {
+            ids[symbol] = table.isTerminal(symbol) ? -(terminalCount++ + 2) : nonTerminalCount++;
+        }
+        this.nonTerminals = new String[nonTerminalCount];
+        this.terminals = new String[terminalCount];
+        for (int symbol = 0; symbol < table.size(); symbol++) {
+            if (ids[symbol] >= 0) nonTerminals[ids[symbol]] = table.name(symbol);
+            else terminals[-ids[symbol] - 2] = table.name(symbol);
+        }
+        this.start = ids[grammar.start];
+        int longest = 1;
+        for (String terminal : terminals) longest = Math.max(longest, terminal.length());
+        this.longestTerminal = longest;
+
+        // Flatten the rules in non-terminal order, each closed by END
+        int ruleCount = grammar.ruleBodies.length;
+        int symbolCount = ruleCount;
+        for (int[] body : grammar.ruleBodies) symbolCount += body.length;
+        this.ruleOffsets = new int[nonTerminals.length + 1];
+        this.ruleDot = new int[ruleCount];
+        this.ruleHead = new int[ruleCount];
+        this.symbols = new int[symbolCount];
+        this.ruleOfDot = new int[symbolCount];
+        int rule = 0;
+        int dot = 0;
+        for (int symbol = 0; symbol < table.size(); symbol++) {
+            int head = ids[symbol];
+            if (head < 0) continue;
+            ruleOffsets[head] = rule;
+            for (int r = grammar.ruleOffsets[symbol]; r < grammar.ruleOffsets[symbol + 1]; r++) {
+                ruleDot[rule] = dot;
+                ruleHead[rule] = head;
+                for (int part : grammar.ruleBodies[r]) {
+                    ruleOfDot[dot] = rule;
+                    symbols[dot++] = ids[part];
+                }
+                ruleOfDot[dot] = rule;
+                symbols[dot++] = END;
+                rule++;
+            }
+        }
+        ruleOffsets[nonTerminals.length] = rule;
+
+        this.nullable = nullable();
+    }
+
+    // Worklist over the rules: a rule without terminals becomes nullable once all of its symbols are
+    private boolean[] nullable() {
+        boolean[] result = new boolean[nonTerminals.length];
+        int ruleCount = ruleHead.length;
+        int[] missing = new int[ruleCount]; // Symbols of the rule not yet known to be nullable, -1 with a terminal
+        int[] occurrenceOffsets = new int[nonTerminals.length + 1];
+        for (int rule = 0; rule < ruleCount; rule++) {
+            for (int dot = ruleDot[rule]; symbols[dot] != END; dot++) {
+                if (symbols[dot] < 0) {
+                    missing[rule] = -1;
+                    break;
+                }
+                missing[rule]++;
+            }
+            if (missing[rule] <= 0) continue;
+            for (int dot = ruleDot[rule]; symbols[dot] != END; dot++) occurrenceOffsets[symbols[dot] + 1]++;
+        }
+
+        // Rules containing each non-terminal, once per occurrence
+        for (int i = 0; i < nonTerminals.length; i++) occurrenceOffsets[i + 1] += occurrenceOffsets[i];
+        int[] occurrences = new int[occurrenceOffsets[nonTerminals.length]];
+        int[] fill = occurrenceOffsets.clone();
+        int[] queue = new int[nonTerminals.length];
+        int tail = 0;
+        for (int rule = 0; rule < ruleCount; rule++) {
+            if (missing[rule] > 0) {
+                for (int dot = ruleDot[rule]; symbols[dot] != END; dot++) occurrences[fill[symbols[dot]]++] = rule;
+            } else if (missing[rule] == 0 && !result[ruleHead[rule]]) {
+                result[ruleHead[rule]] = true;
+                queue[tail++] = ruleHead[rule];
+            }
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int symbol = queue[head];
+            for (int i = occurrenceOffsets[symbol]; i < occurrenceOffsets[symbol + 1]; i++) {
+                int rule = occurrences[i];
+                if (--missing[rule] == 0 && !result[ruleHead[rule]]) {
+                    result[ruleHead[rule]] = true;
+                    queue[tail++] = ruleHead[rule];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param input The sentence to check
+     * @return true if the grammar derives the input
+     */
+    public boolean accepts(CharSequence input) {
+        Chart chart = new Chart(input, true);
+        chart.run();
+        ItemSet last = chart.sets[input.length()];
+        for (int k = 0; k < last.size; k++) {
+            long item = last.items[k];
+            int dot = (int) item;
+            if (symbols[dot] == END && (item >>> 32) == 0 && ruleHead[ruleOfDot[dot]] == start) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parses the input into a shared packed parse forest holding every derivation of it.
+     * The chart is built without Leo's optimization here, since the forest needs the completed
+     * items of every step of a right-recursive chain.
+     *
+     * @param input The sentence to parse
+     * @return The forest of all parse trees, or null if the grammar does not derive the input
+     */
+    public ParseForest parseForest(CharSequence input) {
+        int n = input.length();
+        Chart chart = new Chart(input, false);
+        chart.run();
+        if (!chart.completed(start, 0, n)) return null;
+
+        // Nodes are discovered top-down and processed in id order, so their families are appended in CSR order
+        long width = n + 1L;
+        int symbolLabels = symbols.length; // Labels below are dots of rule prefixes, from here on non-terminals
+        Map<Long, Integer> ids = new HashMap<>();
+        IntList labels = new IntList();
+        IntList froms = new IntList();
+        IntList tos = new IntList();
+        IntList familyOffsets = new IntList();
+        IntList familyLeft = new IntList();
+        IntList familyRight = new IntList();
+        ids.put((symbolLabels + start) * width * width + n, 0);
+        labels.add(symbolLabels + start);
+        froms.add(0);
+        tos.add(n);
+
+        for (int node = 0; node < labels.size; node++) {
+            familyOffsets.add(familyLeft.size);
+            int label = labels.values[node];
+            int from = froms.values[node];
+            int to = tos.values[node];
+            if (label >= symbolLabels) {
+                // Symbol node: one family per rule of the non-terminal deriving the span
+                int head = label - symbolLabels;
+                for (int r = ruleOffsets[head]; r < ruleOffsets[head + 1]; r++) {
+                    int end = endDot(r);
+                    if (!chart.sets[to].contains(item(from, end))) continue;
+                    int child = end == ruleDot[r] ? ParseForest.EMPTY
+                            : node(ids, end, from, to, width, labels, froms, tos);
+                    familyLeft.add(child);
+                    familyRight.add(ParseForest.EMPTY);
+                }
+                continue;
+            }
+
+            // Rule prefix node: split off the symbol before the dot, the rest of the prefix ends at split
+            int symbol = symbols[label - 1];
+            boolean first = ruleDot[ruleOfDot[label]] == label - 1;
+            int splitFrom = from;
+            int splitTo = to;
+            if (symbol < 0) splitFrom = splitTo = to - terminals[-symbol - 2].length();
+            for (int split = splitFrom; split <= splitTo; split++) {
+                if (split < from || !chart.sets[split].contains(item(from, label - 1))) continue;
+                int right;
+                if (symbol < 0) {
+                    right = ParseForest.TERMINAL;
+                } else if (chart.completed(symbol, split, to)) {
+                    right = node(ids, symbolLabels + symbol, split, to, width, labels, froms, tos);
+                } else {
+                    continue;
+                }
+                familyLeft.add(first ? ParseForest.EMPTY : node(ids, label - 1, from, split, width, labels, froms, tos));
+                familyRight.add(right);
+            }
+        }
+        familyOffsets.add(familyLeft.size);
+
+        return new ParseForest(input.toString(), nonTerminals, terminals, symbols, symbolLabels, labels.toArray(),
+                familyOffsets.toArray(), familyLeft.toArray(), familyRight.toArray());
+    }
+
+    private static int node(Map<Long, Integer> ids, int label, int from, int to, long width,
+                            IntList labels, IntList froms, IntList tos) {
+        Integer id = ids.get((label * width + from) * width + to);
+        if (id != null) return id;
+        ids.put((label * width + from) * width + to, labels.size);
+        labels.add(label);
+        froms.add(from);
+        tos.add(to);
+        return labels.size - 1;
+    }
+
+    // Dot position of the end marker of rule r
+    private int endDot(int rule) {
+        return (rule + 1 < ruleDot.length ? ruleDot[rule + 1] : symbols.length) - 1;
+    }
+
+    /**
+     * Enumerates the sentences of the grammar in shortlex order: by length, then by char.
+     * Sentences are walked char by char on one chart whose last sets are rebuilt on backtracking,
+     * and a prefix is only extended if it can still be completed to the current length, so every
+     * step leads to a sentence and no sentence is produced twice, even for ambiguous grammars.
+     *
+     * @param maxLength The longest sentence to enumerate
+     * @return A lazy iterator over the sentences of at most maxLength chars
+     */
+    public Iterator<String> sentences(int maxLength) {
+        if (maxLength < 0) throw new IllegalArgumentException("Negative length bound: " + maxLength);
+        return new Sentences(maxLength);
+    }
+
+    public int nonTerminalCount() {
+        return nonTerminals.length;
+    }
+
+    public int ruleCount() {
+        return ruleHead.length;
+    }
+
+    private static long item(int origin, int dot) {
+        return ((long) origin << 32) | dot;
+    }
+
+    /**
+     * The Earley sets of one input, filled left to right. Scanning pulls the terminals ending at a
+     * set from the sets before it, so a set only depends on the input before its position and can
+     * be rebuilt after the input behind it changed.
+     */
+    private final class Chart {
+        final CharSequence input;
+        final ItemSet[] sets;
+        final int[] predicted; // Build of the set every non-terminal was last predicted in
+        final boolean leo;
+        int builds;
+        int[] pathSets = new int[16];
+        int[] pathSlots = new int[16];
+
+        Chart(CharSequence input, boolean leo) {
+            this(input, input.length(), leo);
+        }
+
+        Chart(CharSequence input, int capacity, boolean leo) {
+            this.input = input;
+            this.leo = leo;
+            this.sets = new ItemSet[capacity + 1];
+            this.predicted = new int[nonTerminals.length];
+            Arrays.fill(predicted, -1);
+        }
+
+        void run() {
+            for (int i = 0; i <= input.length(); i++) build(i);
+        }
+
+        // (Re)builds set i from the sets before it and the input up to i
+        void build(int i) {
+            ItemSet set = new ItemSet();
+            sets[i] = set;
+            builds++;
+            if (i == 0) predict(set, start, 0, 0, END);
+            else scan(set, i);
+            // The set is its own worklist: items appended while processing are processed too
+            for (int k = 0; k < set.size; k++) {
+                long item = set.items[k];
+                int dot = (int) item;
+                int origin = (int) (item >>> 32);
+                int symbol = symbols[dot];
+                if (symbol >= 0) {
+                    predict(set, symbol, i, origin, dot);
+                } else if (symbol == END) {
+                    // Completions with origin i are already covered by the nullable predictor
+                    if (origin < i) complete(set, ruleHead[ruleOfDot[dot]], origin);
+                }
+            }
+            set.index();
+        }
+
+        // Moves the dot over every terminal that ends at position to and matches the input
+        private void scan(ItemSet set, int to) {
+            for (int from = Math.max(0, to - longestTerminal); from < to; from++) {
+                long[] scanItems = sets[from].scanItems;
+                for (long item : scanItems) {
+                    String terminal = terminals[-symbols[(int) item] - 2];
+                    if (from + terminal.length() == to && matches(terminal, from)) set.add(item + 1);
+                }
+            }
+        }
+
+        private boolean matches(String terminal, int from) {
+            for (int j = 0; j < terminal.length(); j++) {
+                if (input.charAt(from + j) != terminal.charAt(j)) return false;
+            }
+            return true;
+        }
+
+        // Adds the rules of symbol once per set, and moves the dot of the waiting item over a nullable symbol
+        private void predict(ItemSet set, int symbol, int i, int origin, int dot) {
+            if (predicted[symbol] != builds) {
+                predicted[symbol] = builds;
+                for (int r = ruleOffsets[symbol]; r < ruleOffsets[symbol + 1]; r++) set.add(item(i, ruleDot[r]));
+            }
+            if (dot != END && nullable[symbol]) set.add(item(origin, dot + 1));
+        }
+
+        private void complete(ItemSet set, int symbol, int origin) {
+            ItemSet from = sets[origin];
+            int slot = from.find(symbol);
+            if (slot < 0) return;
+            long top = leo ? leo(origin, symbol) : NONE;
+            if (top != NONE) {
+                set.add(top);
+                return;
+            }
+            for (int w = from.waitOffsets[slot]; w < from.waitOffsets[slot + 1]; w++) set.add(from.waitItems[w] + 1);
+        }
+
+        // True if a rule of symbol derives input[from, to), given that symbol was predicted at from
+        boolean completed(int symbol, int from, int to) {
+            for (int r = ruleOffsets[symbol]; r < ruleOffsets[symbol + 1]; r++) {
+                if (sets[to].contains(item(from, endDot(r)))) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Follows the deterministic reduction path above a completed symbol: as long as exactly one
+         * item waits for the symbol and the symbol is the last one of its rule, completing it only
+         * completes that item. The topmost item of the chain is memoized on every set along the way.
+         *
+         * @return The topmost completed item, or NONE if the first step is not deterministic
+         */
+        private long leo(int set, int symbol) {
+            long top = NONE;
+            int pathLength = 0;
+            while (true) {
+                ItemSet items = sets[set];
+                int slot = items.find(symbol);
+                if (slot < 0) break;
+                long cached = items.leo[slot];
+                if (cached != UNKNOWN) {
+                    if (cached != NONE) top = cached;
+                    break;
+                }
+                long waiting = items.waitOffsets[slot + 1] - items.waitOffsets[slot] == 1
+                        ? items.waitItems[items.waitOffsets[slot]] : NONE;
+                int dot = (int) waiting;
+                int origin = (int) (waiting >>> 32);
+                // Origins strictly decrease along the chain, which also rules out cycles
+                if (waiting == NONE || symbols[dot + 1] != END || origin >= set) {
+                    items.leo[slot] = NONE;
+                    break;
+                }
+                if (pathLength == pathSets.length) {
+                    pathSets = Arrays.copyOf(pathSets, pathLength * 2);
+                    pathSlots = Arrays.copyOf(pathSlots, pathLength * 2);
+                }
+                pathSets[pathLength] = set;
+                pathSlots[pathLength++] = slot;
+                top = waiting + 1;
+                symbol = ruleHead[ruleOfDot[dot]];
+                set = origin;
+            }
+            for (int p = 0; p < pathLength; p++) sets[pathSets[p]].leo[pathSlots[p]] = top;
+            return top;
+        }
+    }
+
+    /**
+     * Shortlex walk over the sentences. Lengths are kept as bitsets over [0, maxLength], and a
+     * memoized dynamic program gives the lengths every rule suffix can derive. For every set of the
+     * chart, {@code follow} holds the lengths that can come after each non-terminal some item waits
+     * on, and {@code completions} the lengths that can still follow the input read so far.
+     */
+    private final class Sentences implements Iterator<String> {
+        final int maxLength;
+        final int words;
+        final long lastMask; // Bits of the last word within [0, maxLength]
+        final char[] letters; // Chars of the terminals in ascending order
+        final long[] suffixLengths; // Per dot position: the lengths the rest of its rule derives
+        final long[] startFollow; // Only the length 0: nothing follows the start symbol
+        final long[] completions; // Per prefix length
+        final long[] scratch;
+        final StringBuilder input = new StringBuilder();
+        final Chart chart;
+        final int[] letterIndex;
+        int length; // Length of the sentences currently enumerated
+        int depth; // Chars of the current prefix
+        boolean started; // false until the first prefix of the current length was tried
+        String next;
+
+        Sentences(int maxLength) {
+            this.maxLength = maxLength;
+            this.words = (maxLength >>> 6) + 1;
+            this.lastMask = -1L >>> (63 - (maxLength & 63));
+            StringBuilder chars = new StringBuilder();
+            for (String terminal : terminals) chars.append(terminal);
+            int[] distinct = chars.chars().distinct().sorted().toArray();
+            this.letters = new char[distinct.length];
+            for (int i = 0; i < distinct.length; i++) letters[i] = (char) distinct[i];
+            this.suffixLengths = suffixLengths();
+            this.startFollow = new long[words];
+            startFollow[0] = 1L;
+            this.completions = new long[(maxLength + 1) * words];
+            this.scratch = new long[words];
+            this.chart = new Chart(input, maxLength, false);
+            this.letterIndex = new int[maxLength + 1];
+            extend(0);
+        }
+
+        // Fixed point over the rules, every suffix of a rule is recomputed from the lengths found so far
+        private long[] suffixLengths() {
+            long[] lengths = new long[nonTerminals.length * words];
+            long[] suffixes = new long[symbols.length * words];
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int rule = 0; rule < ruleHead.length; rule++) {
+                    int end = endDot(rule);
+                    suffixes[end * words] = 1L;
+                    for (int dot = end - 1; dot >= ruleDot[rule]; dot--) {
+                        int symbol = symbols[dot];
+                        if (symbol < 0) {
+                            orShifted(suffixes, (dot + 1) * words, terminals[-symbol - 2].length(), suffixes, dot * words);
+                        } else {
+                            orSums(lengths, symbol * words, suffixes, (dot + 1) * words, suffixes, dot * words);
+                        }
+                    }
+                    int head = ruleHead[rule] * words;
+                    for (int w = 0; w < words; w++) {
+                        long merged = lengths[head + w] | suffixes[ruleDot[rule] * words + w];
+                        if (merged != lengths[head + w]) {
+                            lengths[head + w] = merged;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+            return suffixes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = advance();
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String sentence = next;
+            next = null;
+            return sentence;
+        }
+
+        // Depth-first in char order over the prefixes that can still reach the current length
+        private String advance() {
+            while (length <= maxLength) {
+                if (!started) {
+                    started = true;
+                    depth = 0;
+                    letterIndex[0] = -1;
+                    if (!hasBit(completions, 0, length)) {
+                        nextLength();
+                        continue;
+                    }
+                } else if (depth == length) {
+                    // The previous sentence was just returned, try its last char next
+                    if (length == 0) {
+                        nextLength();
+                        continue;
+                    }
+                    depth = length - 1;
+                }
+                while (depth < length) {
+                    if (tryNextLetter(depth)) {
+                        if (++depth < length) letterIndex[depth] = -1;
+                    } else if (depth == 0) {
+                        break;
+                    } else {
+                        depth--;
+                    }
+                }
+                if (depth == length) return input.toString();
+                nextLength();
+            }
+            return null;
+        }
+
+        private void nextLength() {
+            length++;
+            started = false;
+        }
+
+        private boolean tryNextLetter(int position) {
+            for (int index = letterIndex[position] + 1; index < letters.length; index++) {
+                char letter = letters[index];
+                if (!expects(position, letter)) continue;
+                input.setLength(position);
+                input.append(letter);
+                extend(position + 1);
+                if (hasBit(completions, (position + 1) * words, length - position - 1)) {
+                    letterIndex[position] = index;
+                    return true;
+                }
+            }
+            input.setLength(position);
+            return false;
+        }
+
+        // True if a terminal started at or before position continues with letter
+        private boolean expects(int position, char letter) {
+            for (int from = Math.max(0, position - longestTerminal + 1); from <= position; from++) {
+                for (long item : chart.sets[from].scanItems) {
+                    String terminal = terminals[-symbols[(int) item] - 2];
+                    if (position - from < terminal.length() && terminal.charAt(position - from) == letter
+                            && matchesPartly(terminal, from, position)) return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesPartly(String terminal, int from, int to) {
+            for (int j = from; j < to; j++) {
+                if (input.charAt(j) != terminal.charAt(j - from)) return false;
+            }
+            return true;
+        }
+
+        // Builds set i of the chart with its follow lengths, then the lengths that can complete the prefix
+        private void extend(int i) {
+            chart.build(i);
+            ItemSet set = chart.sets[i];
+            set.follow = new long[set.waitSymbols.length * words];
+            if (i == 0) {
+                int slot = set.find(start);
+                if (slot >= 0) set.follow[slot * words] = 1L;
+            }
+            // Items of set i waiting on a symbol predicted in set i itself depend on each other
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int slot = 0; slot < set.waitSymbols.length; slot++) {
+                    for (int w = set.waitOffsets[slot]; w < set.waitOffsets[slot + 1]; w++) {
+                        long item = set.waitItems[w];
+                        Arrays.fill(scratch, 0L);
+                        orSums(suffixLengths, ((int) item + 1) * words, followOf(item), followOffset(item), scratch, 0);
+                        changed |= orInto(scratch, 0, set.follow, slot * words);
+                    }
+                }
+            }
+
+            int offset = i * words;
+            Arrays.fill(completions, offset, offset + words, 0L);
+            for (int k = 0; k < set.size; k++) {
+                long item = set.items[k];
+                orSums(suffixLengths, (int) item * words, followOf(item), followOffset(item), completions, offset);
+            }
+            // Terminals started before i and not finished yet
+            for (int from = Math.max(0, i - longestTerminal + 1); from < i; from++) {
+                for (long item : chart.sets[from].scanItems) {
+                    String terminal = terminals[-symbols[(int) item] - 2];
+                    int end = from + terminal.length();
+                    if (end <= i || !matchesPartly(terminal, from, i)) continue;
+                    Arrays.fill(scratch, 0L);
+                    orSums(suffixLengths, ((int) item + 1) * words, followOf(item), followOffset(item), scratch, 0);
+                    orShifted(scratch, 0, end - i, completions, offset);
+                }
+            }
+        }
+
+        // The follow lengths of the head of an item in the set of its origin
+        private long[] followOf(long item) {
+            ItemSet origin = chart.sets[(int) (item >>> 32)];
+            return origin.find(ruleHead[ruleOfDot[(int) item]]) >= 0 ? origin.follow : startFollow;
+        }
+
+        private int followOffset(long item) {
+            int slot = chart.sets[(int) (item >>> 32)].find(ruleHead[ruleOfDot[(int) item]]);
+            return slot >= 0 ? slot * words : 0;
+        }
+
+        // out |= { x + y : x in a, y in b }, cut at maxLength
+        private void orSums(long[] a, int aOffset, long[] b, int bOffset, long[] out, int outOffset) {
+            for (int w = 0; w < words; w++) {
+                long bits = a[aOffset + w];
+                while (bits != 0) {
+                    orShifted(b, bOffset, (w << 6) | Long.numberOfTrailingZeros(bits), out, outOffset);
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        // out |= { y + shift : y in b }, cut at maxLength
+        private void orShifted(long[] b, int bOffset, int shift, long[] out, int outOffset) {
+            int wordShift = shift >>> 6;
+            int bitShift = shift & 63;
+            for (int w = words - 1; w >= wordShift; w--) {
+                long value = b[bOffset + w - wordShift] << bitShift;
+                if (bitShift != 0 && w - wordShift > 0) value |= b[bOffset + w - wordShift - 1] >>> (64 - bitShift);
+                out[outOffset + w] |= w == words - 1 ? value & lastMask : value;
+            }
+        }
+
+        private boolean orInto(long[] from, int fromOffset, long[] to, int toOffset) {
+            boolean changed = false;
+            for (int w = 0; w < words; w++) {
+                long merged = to[toOffset + w] | from[fromOffset + w];
+                changed |= merged != to[toOffset + w];
+                to[toOffset + w] = merged;
+            }
+            return changed;
+        }
+
+        private boolean hasBit(long[] bits, int offset, int bit) {
+            return bit >= 0 && (bits[offset + (bit >>> 6)] & (1L << bit)) != 0;
+        }
+    }
+
+    /**
+     * One Earley set: the items in insertion order with an open-addressing hash for deduplication.
+     * Once finished, the items waiting on a non-terminal are indexed by that non-terminal.
+     */
+    private final class ItemSet {
+        long[] items = new long[8];
+        int size;
+        long[] slots = emptySlots(16);
+
+        int[] waitSymbols; // Sorted non-terminals some item waits on
+        int[] waitOffsets;
+        long[] waitItems;
+        long[] leo;
+        long[] scanItems; // Items with a terminal after the dot
+        long[] follow; // Lengths that can follow each wait symbol, only used by sentence enumeration
+
+        void add(long item) {
+            int mask = slots.length - 1;
+            int slot = (int) ((item * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (slots[slot] != NONE) {
+                if (slots[slot] == item) return;
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = item;
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = item;
+            if (size * 2 > slots.length) rehash();
+        }
+
+        private void rehash() {
+            long[] old = slots;
+            slots = emptySlots(old.length * 2);
+            int mask = slots.length - 1;
+            for (long item : old) {
+                if (item == NONE) continue;
+                int slot = (int) ((item * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+                while (slots[slot] != NONE) slot = (slot + 1) & mask;
+                slots[slot] = item;
+            }
+        }
+
+        boolean contains(long item) {
+            int mask = slots.length - 1;
+            int slot = (int) ((item * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (slots[slot] != NONE) {
+                if (slots[slot] == item) return true;
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        void index() {
+            long[] keys = new long[size];
+            int count = 0;
+            int scans = 0;
+            for (int k = 0; k < size; k++) {
+                int symbol = symbols[(int) items[k]];
+                if (symbol >= 0) keys[count++] = ((long) symbol << 32) | k;
+                else if (symbol != END) scans++;
+            }
+            scanItems = new long[scans];
+            scans = 0;
+            for (int k = 0; k < size; k++) {
+                int symbol = symbols[(int) items[k]];
+                if (symbol < 0 && symbol != END) scanItems[scans++] = items[k];
+            }
+            Arrays.sort(keys, 0, count);
+            waitItems = new long[count];
+            int distinct = 0;
+            for (int w = 0; w < count; w++) {
+                if (w == 0 || (keys[w] >>> 32) != (keys[w - 1] >>> 32)) distinct++;
+            }
+            waitSymbols = new int[distinct];
+            waitOffsets = new int[distinct + 1];
+            distinct = 0;
+            for (int w = 0; w < count; w++) {
+                int symbol = (int) (keys[w] >>> 32);
+                if (w == 0 || symbol != waitSymbols[distinct - 1]) {
+                    waitSymbols[distinct] = symbol;
+                    waitOffsets[distinct++] = w;
+                }
+                waitItems[w] = items[(int) keys[w]];
+            }
+            waitOffsets[distinct] = count;
+            leo = new long[distinct];
+            Arrays.fill(leo, UNKNOWN);
+        }
+
+        int find(int symbol) {
+            int slot = Arrays.binarySearch(waitSymbols, symbol);
+            return slot >= 0 ? slot : -1;
+        }
+    }
+
+    private static long[] emptySlots(int capacity) {
+        long[] slots = new long[capacity];
+        Arrays.fill(slots, NONE);
+        return slots;
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
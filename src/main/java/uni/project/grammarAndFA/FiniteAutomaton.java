@@ -1,15 +1,12 @@
 package uni.project.grammarAndFA;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
-import java.util.Queue;
-import java.util.LinkedList;
-import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -22,42 +19,187 @@ import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 
 public class FiniteAutomaton {
-    List<String> Q; // States
-    List<String> Sigma; // Alphabet
-    HashMap<HashMap<String, String>, List<String>> delta; // Transition function (updated)
-    String q0; // Initial state
-    List<String> F; // Final states (updated)
+    // The automaton is immutable: the constructor copies its arguments, so the compiled form below stays valid
+    final List<String> Q; // States
+    final List<String> Sigma; // Alphabet
+    final HashMap<HashMap<String, String>, List<String>> delta; // Transition function, never modified after construction
+    final String q0; // Initial state
+    final List<String> F; // Final states
+
+    // Derived data, built on first use
+    private CompiledAutomaton compiled;
 
     public FiniteAutomaton(List<String> Q, List<String> Sigma, HashMap<HashMap<String, String>, List<String>> delta, String q0, List<String> F) {
-        this.Q = Q;
-        this.Sigma = Sigma;
-        this.delta = delta;
+        this.Q = List.copyOf(Q);
+        this.Sigma = List.copyOf(Sigma);
+        this.delta = new HashMap<>();
+        for (Map.Entry<HashMap<String, String>, List<String>> entry : delta.entrySet()) {
+            this.delta.put(new HashMap<>(entry.getKey()), List.copyOf(entry.getValue()));
+        }
         this.q0 = q0;
-        this.F = F;
+        this.F = List.copyOf(F);
     }
 
     public boolean stringBelongToLanguage(final String inputString) {
-        Set<String> currentStates = new HashSet<>();
-        currentStates.add(q0);
-
-        for (int i = 0; i < inputString.length(); i++) {
-            char cursor = inputString.charAt(i);
-            String symbol = String.valueOf(cursor);
-            Set<String> nextStates = new HashSet<>();
-
-            for (String state : currentStates) {
-                HashMap<String, String> key = new HashMap<>();
-                key.put(state, symbol);
-                List<String> transitions = delta.getOrDefault(key, Collections.emptyList());
-                nextStates.addAll(transitions);
-            }
+        // ε-closures are folded into the compiled successor sets, so NFAs need no determinization
+        if (compiled == null) compiled = compile();
+        return compiled.accepts(inputString);
+    }
 
-            currentStates = nextStates;
-            if (currentStates.isEmpty()) return false;
-        }
+    /**
+     * Checks a batch of strings against the same compiled automaton.
+     *
+     * @param inputStrings The strings to check
+     * @return A bitset whose bit i is set if inputStrings.get(i) belongs to the language
+     */
+    public BitSet stringsBelongToLanguage(final List<String> inputStrings) {
+        if (compiled == null) compiled = compile();
+        return compiled.acceptsAll(inputStrings);
+    }
+
+    /**
+     * @return An incremental matcher over this automaton for inputs fed in chunks
+     */
+    public AutomatonMatcher matcher() {
+        if (compiled == null) compiled = compile();
+        return compiled.matcher();
+    }
+
+    /**
+     * Interns states and symbols to dense ids. Deterministic automata get a flat transition
+     * table for allocation-free matching, non-deterministic ones get precomputed successor
+     * bitsets for word-parallel simulation.
+     *
+     * @return The compiled form of this automaton
+     */
+    public CompiledAutomaton compile() {
+        return CompiledAutomaton.of(this, !isDeterministic());
+    }
+
+    /**
+     * @return The transitions of this automaton in array form, states and symbols in the order of Q and Sigma
+     */
+    public TransitionTable toTransitionTable() {
+        return TransitionTable.from(this);
+    }
+
+    /**
+     * Creates a matcher that determinizes this automaton lazily: DFA states are built only
+     * when an input reaches them and at most maxCachedStates of them are kept at a time.
+     *
+     * @param maxCachedStates Upper bound on the number of materialized DFA states
+     * @return A lazy DFA matcher, not safe for concurrent use
+     */
+    public LazyDfa toLazyDFA(int maxCachedStates) {
+        return new LazyDfa(compile(), maxCachedStates);
+    }
+
+    /**
+     * Builds the minimal DFA for the language of this automaton using Hopcroft's
+     * partition refinement. Non-deterministic automata are determinized first,
+     * unreachable and dead states are dropped.
+     *
+     * @return The minimal deterministic automaton
+     */
+    public FiniteAutomaton minimize() {
+        return DfaMinimizer.minimize(compileDeterministic()).toFiniteAutomaton();
+    }
+
+    // Compiled DFA of this automaton, determinized first if it is an NFA
+    private CompiledAutomaton compileDeterministic() {
+        return isDeterministic() ? compile() : SubsetConstruction.determinize(compile());
+    }
+
+    /**
+     * Builds the product automaton of the strings accepted by both automata.
+     * Only state pairs reachable from the pair of initial states are created.
+     *
+     * @param other The other automaton, its alphabet may differ from this one
+     * @return A DFA for the intersection of the two languages
+     */
+    public FiniteAutomaton intersection(FiniteAutomaton other) {
+        return LanguageOperations.product(compileDeterministic(), other.compileDeterministic(),
+                LanguageOperations.Operation.INTERSECTION).toFiniteAutomaton();
+    }
+
+    /**
+     * @param other The automaton whose strings are removed
+     * @return A DFA for the strings accepted by this automaton but not by the other one
+     */
+    public FiniteAutomaton difference(FiniteAutomaton other) {
+        return LanguageOperations.product(compileDeterministic(), other.compileDeterministic(),
+                LanguageOperations.Operation.DIFFERENCE).toFiniteAutomaton();
+    }
+
+    /**
+     * @return A DFA for all strings over Sigma that this automaton rejects
+     */
+    public FiniteAutomaton complement() {
+        return LanguageOperations.complement(compileDeterministic()).toFiniteAutomaton();
+    }
+
+    /**
+     * @return true if the automaton accepts no string at all
+     */
+    public boolean isEmpty() {
+        return shortestString() == null;
+    }
+
+    /**
+     * @return A shortest accepted string, or null if the language is empty
+     */
+    public String shortestString() {
+        return LanguageOperations.shortestString(compile());
+    }
+
+    /**
+     * Enumerates every accepted string of at most maxLength chars exactly once, shortest first
+     * and alphabetically within a length. NFAs are determinized first so that no string is repeated.
+     *
+     * @param maxLength The longest string to enumerate
+     * @return A lazy iterator over the accepted strings in shortlex order
+     */
+    public Iterator<String> enumerateStrings(int maxLength) {
+        return new ShortlexIterator(compileDeterministic(), maxLength);
+    }
+
+    /**
+     * Searches the product on the fly and stops at the first common string,
+     * without building the intersection automaton.
+     *
+     * @param other The other automaton
+     * @return A shortest string accepted by both automata, or null if there is none
+     */
+    public String intersectionWitness(FiniteAutomaton other) {
+        return LanguageOperations.witness(compileDeterministic(), other.compileDeterministic(),
+                LanguageOperations.Operation.INTERSECTION);
+    }
 
-        currentStates.retainAll(F);
-        return !currentStates.isEmpty();
+    /**
+     * @param other The other automaton
+     * @return A shortest string accepted by this automaton but not by the other one, or null if there is none
+     */
+    public String differenceWitness(FiniteAutomaton other) {
+        return LanguageOperations.witness(compileDeterministic(), other.compileDeterministic(),
+                LanguageOperations.Operation.DIFFERENCE);
+    }
+
+    /**
+     * Checks language equivalence with the Hopcroft–Karp union-find algorithm.
+     *
+     * @param other The other automaton
+     * @return true if both automata accept exactly the same strings
+     */
+    public boolean isEquivalent(FiniteAutomaton other) {
+        return LanguageOperations.equivalent(compileDeterministic(), other.compileDeterministic());
+    }
+
+    /**
+     * @param other The other automaton
+     * @return A shortest string accepted by exactly one of the two automata, or null if they are equivalent
+     */
+    public String distinguishingString(FiniteAutomaton other) {
+        return LanguageOperations.distinguishingString(compileDeterministic(), other.compileDeterministic());
     }
 
     public Grammar convertToGrammar() {
@@ -270,93 +412,20 @@ public class FiniteAutomaton {
     }
 
     public FiniteAutomaton convertToDFA() {
-        // Track DFA states (each state is a set of NDFA states)
-        Map<Set<String>, String> dfaStateMap = new HashMap<>();
-        List<String> dfaStates = new ArrayList<>();
-        List<String> dfaSigma = new ArrayList<>(Sigma);
-        dfaSigma.remove("ε"); // Remove epsilon from alphabet
-        HashMap<HashMap<String, String>, List<String>> dfaDelta = new HashMap<>();
-
-        // Initial state is epsilon closure of q0
-        Set<String> initialState = epsilonClosure(Collections.singleton(q0));
-        String dfaQ0 = createDfaStateName(initialState);
-        dfaStateMap.put(initialState, dfaQ0);
-        dfaStates.add(dfaQ0);
-
-        Queue<Set<String>> unprocessed = new LinkedList<>();
-        unprocessed.add(initialState);
-
-        while (!unprocessed.isEmpty()) {
-            Set<String> current = unprocessed.poll();
-            String currentDfaState = dfaStateMap.get(current);
-
-            for (String symbol : dfaSigma) {
-                // Compute move + epsilon closure
-                Set<String> next = epsilonClosure(move(current, symbol));
-
-                if (next.isEmpty()) continue;
-
-                // Get or create DFA state name
-                String nextDfaState = dfaStateMap.computeIfAbsent(next, k -> {
-                    String name = createDfaStateName(k);
-                    dfaStates.add(name);
-                    unprocessed.add(k);
-                    return name;
-                });
-
-                // Add transition to delta
-                HashMap<String, String> key = new HashMap<>();
-                key.put(currentDfaState, symbol);
-                dfaDelta.put(key, Collections.singletonList(nextDfaState));
-            }
-        }
-
-        // Determine final states (any set containing original final state)
-        List<String> dfaF = new ArrayList<>();
-        for (Set<String> stateSet : dfaStateMap.keySet()) {
-            for (String fState : F) {
-                if (stateSet.contains(fState)) {
-                    dfaF.add(dfaStateMap.get(stateSet));
-                    break;
-                }
-            }
-        }
-
-        return new FiniteAutomaton(dfaStates, dfaSigma, dfaDelta, dfaQ0, dfaF);
-    }
-
-    private String createDfaStateName(Set<String> states) {
-        List<String> sorted = new ArrayList<>(states);
-        Collections.sort(sorted);
-        return "q" + String.join("", sorted);
+        // ε is not part of the DFA alphabet: the compiled successor sets are already ε-closed
+        return SubsetConstruction.determinize(CompiledAutomaton.of(this, true)).toFiniteAutomaton();
     }
 
-    private Set<String> epsilonClosure(Set<String> states) {
-        Set<String> closure = new HashSet<>(states);
-        Stack<String> stack = new Stack<>();
-        stack.addAll(states);
-
-        while (!stack.isEmpty()) {
-            String state = stack.pop();
-            HashMap<String, String> key = new HashMap<>();
-            key.put(state, "ε");
-            for (String nextState : delta.getOrDefault(key, Collections.emptyList())) {
-                if (closure.add(nextState)) {
-                    stack.push(nextState);
-                }
-            }
-        }
-        return closure;
-    }
-
-    private Set<String> move(Set<String> states, String symbol) {
-        Set<String> result = new HashSet<>();
-        for (String state : states) {
-            HashMap<String, String> key = new HashMap<>();
-            key.put(state, symbol);
-            result.addAll(delta.getOrDefault(key, Collections.emptyList()));
-        }
-        return result;
+    /**
+     * Parallel variant of {@link #convertToDFA()}: every BFS frontier of the subset
+     * construction is expanded across the given pool. The result is identical to the
+     * sequential conversion, including state order.
+     *
+     * @param pool The pool to run the frontier expansion on
+     * @return The equivalent DFA
+     */
+    public FiniteAutomaton convertToDFA(ForkJoinPool pool) {
+        return SubsetConstruction.determinizeParallel(CompiledAutomaton.of(this, true), pool).toFiniteAutomaton();
     }
 
     @Override
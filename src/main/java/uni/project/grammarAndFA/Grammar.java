@@ -1,6 +1,7 @@
 package uni.project.grammarAndFA;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 public class Grammar {
     private final List<String> VN;
@@ -8,30 +9,171 @@ public class Grammar {
     private final String startVariable;
     private final HashMap<String, List<String>> hashMap;
 
+    // Productions split into symbol ids once: the bodies of A are ruleBodies[ruleOffsets[A] .. ruleOffsets[A + 1])
+    final SymbolTable symbols;
+    final int start;
+    final int[] ruleOffsets;
+    final int[][] ruleBodies;
+    // Rules whose left side is not a single non-terminal, only used to determine the grammar type
+    private final int[][] contextLeft;
+    private final int[][] contextRight;
+
+    static final int DEFAULT_MAX_LENGTH = 1000;
+    static final int DEFAULT_MAX_DEPTH = 100;
+    private SentenceGenerator generator; // Built on first use
+    private UniformSampler sampler; // Count tables for the longest length sampled so far
+
     public Grammar(List<String> VN, List<String> VT, String startVariable, HashMap<String, List<String>> hashMap) {
         this.VN = VN;
         this.VT = VT;
         this.startVariable = startVariable;
         this.hashMap = hashMap;
-    }
 
-    public String generateString() {
-        StringBuilder sb = new StringBuilder(startVariable);
-        int cursor = 0;
-        while (cursor < sb.length()) {
-            char c = sb.charAt(cursor);
-            if (Character.isLowerCase(c)) {
-                cursor++;
-            } else {
-                List<String> possibleValues = hashMap.get(String.valueOf(c));
-                if (possibleValues == null || possibleValues.isEmpty()) {
-                    throw new IllegalStateException("No production rule for non-terminal: " + c);
+        // Names are split greedily against VN and VT, so S0 or T1 stay one symbol
+        this.symbols = new SymbolTable();
+        for (String nonTerminal : VN) symbols.add(nonTerminal, false);
+        this.start = symbols.add(startVariable, false);
+        for (String terminal : VT) symbols.add(terminal, true);
+        int ruleCount = 0;
+        int contextCount = 0;
+        for (Map.Entry<String, List<String>> entry : hashMap.entrySet()) {
+            if (isNonTerminal(entry.getKey())) ruleCount += entry.getValue().size();
+            else contextCount += entry.getValue().size();
+        }
+        int[] heads = new int[ruleCount];
+        int[][] bodies = new int[ruleCount][];
+        this.contextLeft = new int[contextCount][];
+        this.contextRight = new int[contextCount][];
+        int rule = 0;
+        int contextRule = 0;
+        for (Map.Entry<String, List<String>> entry : hashMap.entrySet()) {
+            boolean contextFree = isNonTerminal(entry.getKey());
+            int[] left = contextFree ? null : symbols.tokenize(entry.getKey());
+            for (String production : entry.getValue()) {
+                if (contextFree) {
+                    heads[rule] = symbols.id(entry.getKey());
+                    bodies[rule++] = symbols.tokenize(production);
+                } else {
+                    contextLeft[contextRule] = left;
+                    contextRight[contextRule++] = symbols.tokenize(production);
                 }
-                String replacement = possibleValues.get((int) (Math.random() * possibleValues.size()));
-                sb.replace(cursor, cursor + 1, replacement);
             }
         }
-        return sb.toString();
+        this.ruleOffsets = new int[symbols.size() + 1];
+        this.ruleBodies = groupByHead(heads, bodies, ruleCount, ruleOffsets);
+    }
+
+    private boolean isNonTerminal(String name) {
+        int id = symbols.id(name);
+        return id >= 0 && !symbols.isTerminal(id);
+    }
+
+    /**
+     * Builds a grammar from interned rules. VN and VT list the symbols used by the rules in id order.
+     */
+    Grammar(SymbolTable symbols, int start, int[] heads, int[][] bodies, int ruleCount) {
+        boolean[] used = new boolean[symbols.size()];
+        used[start] = true;
+        this.hashMap = new HashMap<>();
+        for (int r = 0; r < ruleCount; r++) {
+            used[heads[r]] = true;
+            for (int symbol : bodies[r]) used[symbol] = true;
+            hashMap.computeIfAbsent(symbols.name(heads[r]), k -> new ArrayList<>()).add(symbols.join(bodies[r]));
+        }
+        this.VN = new ArrayList<>();
+        this.VT = new ArrayList<>();
+        for (int id = 0; id < symbols.size(); id++) {
+            if (used[id]) (symbols.isTerminal(id) ? VT : VN).add(symbols.name(id));
+        }
+        this.startVariable = symbols.name(start);
+        this.contextLeft = new int[0][];
+        this.contextRight = new int[0][];
+        this.symbols = symbols;
+        this.start = start;
+        this.ruleOffsets = new int[symbols.size() + 1];
+        this.ruleBodies = groupByHead(heads, bodies, ruleCount, ruleOffsets);
+    }
+
+    /**
+     * Guards the algorithms that work on single non-terminal heads only.
+     *
+     * @throws IllegalStateException If a rule has more than one symbol on its left side
+     */
+    void requireContextFree() {
+        if (contextLeft.length > 0) {
+            throw new IllegalStateException("The rule " + symbols.join(contextLeft[0]) + " → "
+                    + symbols.join(contextRight[0]) + " has more than one symbol on its left side");
+        }
+    }
+
+    // Stable counting sort of the rules by head, filling offsets in CSR form
+    private static int[][] groupByHead(int[] heads, int[][] bodies, int ruleCount, int[] offsets) {
+        for (int r = 0; r < ruleCount; r++) offsets[heads[r] + 1]++;
+        for (int i = 0; i + 1 < offsets.length; i++) offsets[i + 1] += offsets[i];
+        int[][] grouped = new int[ruleCount][];
+        int[] fill = offsets.clone();
+        for (int r = 0; r < ruleCount; r++) grouped[fill[heads[r]]++] = bodies[r];
+        return grouped;
+    }
+
+    /**
+     * @return A random sentence, see {@link SentenceGenerator} for the length and depth budget
+     */
+    public String generateString() {
+        return generateString(new SplittableRandom());
+    }
+
+    /**
+     * @param random The source of randomness, so that runs can be reproduced from a seed
+     * @return A random sentence of at most {@value #DEFAULT_MAX_LENGTH} chars where possible
+     */
+    public String generateString(SplittableRandom random) {
+        return generator().next(random);
+    }
+
+    /**
+     * Generates many sentences across cores, reproducibly for a given seed.
+     *
+     * @param count The number of sentences
+     * @param seed The master seed
+     * @return The sentences, see {@link SentenceGenerator#stream(long, long)}
+     */
+    public Stream<String> generateStrings(long count, long seed) {
+        return generator().stream(count, seed);
+    }
+
+    /**
+     * Samples a sentence of an exact length, uniformly among its derivation trees. The count table
+     * behind it is cached and only rebuilt, for twice the length, when a longer sentence is asked for.
+     *
+     * @param length The sentence length in chars
+     * @param random The source of randomness
+     * @return A sentence of that length, or null if the grammar has none
+     */
+    public String sampleUniform(int length, SplittableRandom random) {
+        UniformSampler sampler = this.sampler;
+        if (sampler == null || sampler.maxLength() < length) {
+            sampler = new UniformSampler(this, Math.max(length, sampler == null ? 0 : 2 * sampler.maxLength()));
+            this.sampler = sampler;
+        }
+        return sampler.sample(length, random);
+    }
+
+    /**
+     * Enumerates every sentence of at most maxLength chars exactly once, shortest first and
+     * alphabetically within a length. Sentences are produced lazily, so long enumerations
+     * only hold the current one in memory.
+     *
+     * @param maxLength The longest sentence to enumerate
+     * @return A lazy iterator over the sentences in shortlex order
+     */
+    public Iterator<String> enumerateStrings(int maxLength) {
+        return toEarleyParser().sentences(maxLength);
+    }
+
+    private SentenceGenerator generator() {
+        if (generator == null) generator = new SentenceGenerator(this, DEFAULT_MAX_LENGTH, DEFAULT_MAX_DEPTH);
+        return generator;
     }
 
     public FiniteAutomaton toFiniteAutomaton() {
@@ -43,34 +185,21 @@ public class Grammar {
 
         HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
 
-        for (Map.Entry<String, List<String>> entry : hashMap.entrySet()) {
-            String nonTerminal = entry.getKey();
-            List<String> productions = entry.getValue();
-
-            for (String production : productions) {
-                if (production.equals("ε")) {
-                    HashMap<String, String> key = new HashMap<>();
+        for (int head = 0; head < symbols.size(); head++) {
+            String nonTerminal = symbols.name(head);
+            for (int r = ruleOffsets[head]; r < ruleOffsets[head + 1]; r++) {
+                int[] body = ruleBodies[r];
+                HashMap<String, String> key = new HashMap<>();
+                if (body.length == 0) {
                     key.put(nonTerminal, "ε");
                     delta.computeIfAbsent(key, k -> new ArrayList<>()).add("X");
-                    continue;
-                }
-
-                if (production.length() == 1 && VT.contains(production)) {
-                    HashMap<String, String> key = new HashMap<>();
-                    key.put(nonTerminal, production);
+                } else if (body.length == 1 && symbols.isTerminal(body[0])) {
+                    key.put(nonTerminal, symbols.name(body[0]));
                     delta.computeIfAbsent(key, k -> new ArrayList<>()).add("X");
-                }
-                else if (production.length() == 2) {
-                    char terminal = production.charAt(0);
-                    char nextState = production.charAt(1);
-                    String terminalStr = String.valueOf(terminal);
-                    String nextStateStr = String.valueOf(nextState);
-
-                    if (VT.contains(terminalStr) && VN.contains(nextStateStr)) {
-                        HashMap<String, String> key = new HashMap<>();
-                        key.put(nonTerminal, terminalStr);
-                        delta.computeIfAbsent(key, k -> new ArrayList<>()).add(nextStateStr);
-                    }
+                } else if (body.length == 2 && symbols.isTerminal(body[0]) && !symbols.isTerminal(body[1])) {
+                    // aB: a terminal followed by a non-terminal
+                    key.put(nonTerminal, symbols.name(body[0]));
+                    delta.computeIfAbsent(key, k -> new ArrayList<>()).add(symbols.name(body[1]));
                 }
             }
         }
@@ -83,23 +212,20 @@ public class Grammar {
         boolean isContextFree = true;
         boolean isContextSensitive = true;
 
-        for (Map.Entry<String, List<String>> entry : hashMap.entrySet()) {
-            String leftSide = entry.getKey();
-            List<String> rightSides = entry.getValue();
-
-            if (!VN.contains(leftSide) || leftSide.length() != 1) {
-                isRegular = false;
-                isContextFree = false;
+        // Only a single non-terminal may stand on the left of a context-free rule
+        if (contextLeft.length > 0) {
+            isRegular = false;
+            isContextFree = false;
+        }
+        for (int r = 0; r < contextLeft.length; r++) {
+            if (contextLeft[r].length > contextRight[r].length && contextRight[r].length > 0) {
+                isContextSensitive = false;
             }
+        }
 
-            for (String rightSide : rightSides) {
-                if (isRegular && !isRegularProduction(leftSide, rightSide)) {
-                    isRegular = false;
-                }
-
-                if (leftSide.length() > rightSide.length() && !rightSide.equals("ε")) {
-                    isContextSensitive = false;
-                }
+        for (int[] rightSide : ruleBodies) {
+            if (isRegular && !isRegularProduction(rightSide)) {
+                isRegular = false;
             }
         }
 
@@ -109,24 +235,18 @@ public class Grammar {
         return "Type 0";
     }
 
-    private boolean isRegularProduction(String leftSide, String rightSide) {
-        if (!VN.contains(leftSide) || leftSide.length() != 1) {
-            return false;
-        }
-
-        if (rightSide.length() == 1 && VT.contains(rightSide)) {
-            return true;
+    private boolean isRegularProduction(int[] rightSide) {
+        if (rightSide.length == 1) {
+            return symbols.isTerminal(rightSide[0]);
         }
 
-        if (rightSide.length() == 2) {
-            char first = rightSide.charAt(0);
-            char second = rightSide.charAt(1);
-            String firstStr = String.valueOf(first);
-            String secondStr = String.valueOf(second);
+        if (rightSide.length == 2) {
+            boolean firstTerminal = symbols.isTerminal(rightSide[0]);
+            boolean secondTerminal = symbols.isTerminal(rightSide[1]);
 
-            boolean isRightLinear = VT.contains(firstStr) && VN.contains(secondStr);
+            boolean isRightLinear = firstTerminal && !secondTerminal;
 
-            boolean isLeftLinear = VN.contains(firstStr) && VT.contains(secondStr);
+            boolean isLeftLinear = !firstTerminal && secondTerminal;
 
             return isRightLinear || isLeftLinear;
         }
@@ -144,486 +264,66 @@ public class Grammar {
      * @return A new Grammar in Chomsky Normal Form
      */
     public Grammar toChomskyNormalForm() {
-        // Create deep copies to avoid modifying the original grammar
-        List<String> newVN = new ArrayList<>(VN);
-        List<String> newVT = new ArrayList<>(VT);
-        String newStartVariable = startVariable;
-        HashMap<String, List<String>> newProductions = new HashMap<>();
-
-        // Deep copy productions
-        for (Map.Entry<String, List<String>> entry : hashMap.entrySet()) {
-            newProductions.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        }
-
-        // Step 1: Add a new start symbol S0 if S appears on the right side of any production
-        // or if S can derive epsilon
-        boolean needNewStart = false;
-        // Check if start variable appears on the right side of any production
-        for (List<String> productions : hashMap.values()) {
-            for (String production : productions) {
-                if (production.contains(startVariable)) {
-                    needNewStart = true;
-                    break;
-                }
-            }
-            if (needNewStart) break;
-        }
-
-        // Check if start variable can derive epsilon
-        if (hashMap.containsKey(startVariable)) {
-            List<String> startProductions = hashMap.get(startVariable);
-            if (startProductions.contains("ε")) {
-                needNewStart = true;
-            }
-        }
-
-        // Add new start variable if needed
-        String originalStart = startVariable;
-        if (needNewStart) {
-            String newStart = "S0";
-            // Find a unique name for the new start variable
-            while (newVN.contains(newStart)) {
-                newStart = newStart + "0";
-            }
-            newVN.add(newStart);
-            newStartVariable = newStart;
-            newProductions.put(newStart, new ArrayList<>(Collections.singletonList(originalStart)));
-        }
-
-        // Step 2: Remove epsilon productions
-        eliminateEpsilonProductions(newVN, newProductions);
-
-        // Step 3: Remove unit productions (A → B where B is a non-terminal)
-        eliminateUnitProductions(newVN, newProductions);
-
-        // Step 4: Eliminate inaccessible symbols
-        eliminateInaccessibleSymbols(newVN, newVT, newStartVariable, newProductions);
-
-        // Step 5: Eliminate non-productive symbols
-        eliminateNonProductiveSymbols(newVN, newVT, newProductions);
-
-        // Step 6: Replace terminals in productions with more than one symbol
-        Map<String, String> terminalToNonTerminal = new HashMap<>();
-        int terminalVarCounter = 1;
-
-        for (String nonTerminal : new ArrayList<>(newProductions.keySet())) {
-            List<String> productions = newProductions.get(nonTerminal);
-            List<String> newProductionList = new ArrayList<>();
-
-            for (String production : productions) {
-                if (production.length() > 1) {
-                    StringBuilder newProduction = new StringBuilder();
-
-                    for (int i = 0; i < production.length(); i++) {
-                        String symbol = production.substring(i, i + 1);
-
-                        if (newVT.contains(symbol)) {
-                            // Replace terminal with a new non-terminal
-                            if (!terminalToNonTerminal.containsKey(symbol)) {
-                                String newNonTerminal = "T" + terminalVarCounter++;
-                                // Ensure the new non-terminal is unique
-                                while (newVN.contains(newNonTerminal)) {
-                                    newNonTerminal = "T" + terminalVarCounter++;
-                                }
-
-                                newVN.add(newNonTerminal);
-                                terminalToNonTerminal.put(symbol, newNonTerminal);
-                                newProductions.put(newNonTerminal, new ArrayList<>(Collections.singletonList(symbol)));
-                            }
-
-                            newProduction.append(terminalToNonTerminal.get(symbol));
-                        } else {
-                            newProduction.append(symbol);
-                        }
-                    }
-
-                    newProductionList.add(newProduction.toString());
-                } else {
-                    newProductionList.add(production);
-                }
-            }
-
-            newProductions.put(nonTerminal, newProductionList);
-        }
-
-        // Step 7: Break down productions with more than 2 non-terminals
-        // Fixed implementation to avoid infinite loops
-        HashMap<String, List<String>> finalProductions = new HashMap<>();
-        for (Map.Entry<String, List<String>> entry : newProductions.entrySet()) {
-            finalProductions.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        }
-
-        int varCounter = 1;
-
-        // Process all non-terminals
-        for (String nonTerminal : new ArrayList<>(finalProductions.keySet())) {
-            List<String> productions = finalProductions.get(nonTerminal);
-            List<String> np = new ArrayList<>();
-
-            for (String production : productions) {
-                if (production.length() > 2) {
-                    // Create a sequence of binary productions
-                    String currentNT = nonTerminal;
-                    for (int i = 0; i < production.length() - 2; i++) {
-                        String nextNT = "V" + varCounter++;
-                        // Ensure unique variable name
-                        while (newVN.contains(nextNT)) {
-                            nextNT = "V" + varCounter++;
-                        }
-                        newVN.add(nextNT);
-
-                        // Add production A -> BC where C is the new non-terminal
-                        if (i == 0) {
-                            // First production from the original non-terminal
-                            np.add(production.substring(0, 1) + nextNT);
-                        } else {
-                            // Add production to proper non-terminal
-                            finalProductions.computeIfAbsent(currentNT, k -> new ArrayList<>())
-                                    .add(production.substring(i, i + 1) + nextNT);
-                        }
-
-                        currentNT = nextNT;
-                    }
-
-                    // Add the final production for the last two symbols
-                    finalProductions.computeIfAbsent(currentNT, k -> new ArrayList<>())
-                            .add(production.substring(production.length() - 2));
-                } else {
-                    np.add(production);
-                }
-            }
-
-            // Replace the original productions with the new ones
-            if (!np.isEmpty()) {
-                finalProductions.put(nonTerminal, np);
-            }
-        }
-
-        return new Grammar(newVN, newVT, newStartVariable, finalProductions);
-    }
-
-    /**
-     * Eliminates epsilon productions from the grammar
-     *
-     * @param vn The non-terminal symbols
-     * @param productions The production rules
-     */
-    private void eliminateEpsilonProductions(List<String> vn, HashMap<String, List<String>> productions) {
-        // Find all nullable non-terminals (those that can derive epsilon)
-        Set<String> nullable = new HashSet<>();
-        boolean changed;
-
-        do {
-            changed = false;
-            for (String nonTerminal : vn) {
-                if (!nullable.contains(nonTerminal) && productions.containsKey(nonTerminal)) {
-                    List<String> nonTerminalProductions = productions.get(nonTerminal);
-
-                    // Check if the non-terminal directly produces epsilon
-                    if (nonTerminalProductions.contains("ε")) {
-                        nullable.add(nonTerminal);
-                        changed = true;
-                    } else {
-                        // Check if the non-terminal produces only nullable non-terminals
-                        for (String production : nonTerminalProductions) {
-                            boolean allNullable = true;
-                            for (int i = 0; i < production.length(); i++) {
-                                String symbol = production.substring(i, i + 1);
-                                if (!nullable.contains(symbol)) {
-                                    allNullable = false;
-                                    break;
-                                }
-                            }
-
-                            if (allNullable && !production.isEmpty()) {
-                                nullable.add(nonTerminal);
-                                changed = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-        } while (changed);
-
-        System.out.println("Nullable symbols: " + nullable);
-
-        // Remove epsilon productions and add new productions
-        for (String nonTerminal : vn) {
-            if (productions.containsKey(nonTerminal)) {
-                List<String> nonTerminalProductions = productions.get(nonTerminal);
-                nonTerminalProductions.remove("ε"); // Remove epsilon productions
-
-                // Add new productions to account for nullable non-terminals
-                List<String> newProductions = new ArrayList<>();
-                for (String production : nonTerminalProductions) {
-                    addAllCombinations(production, nullable, newProductions);
-                }
-
-                nonTerminalProductions.addAll(newProductions);
-                // Remove duplicates
-                productions.put(nonTerminal, new ArrayList<>(new HashSet<>(nonTerminalProductions)));
-            }
-        }
+        return CnfConverter.convert(this);
     }
 
     /**
-     * Adds all possible combinations of a production by removing nullable non-terminals
+     * Builds a CYK parser for the language of this grammar, converting it to CNF first.
+     * CYK matches one char per terminal, so multi-char terminals are spelled out char by char before.
      *
-     * @param production The production to process
-     * @param nullable Set of nullable non-terminals
-     * @param result List to store the resulting productions
+     * @return A parser that decides membership in the language of this grammar
      */
-    private void addAllCombinations(String production, Set<String> nullable, List<String> result) {
-        List<Integer> nullablePositions = new ArrayList<>();
-
-        // Find positions of nullable non-terminals in the production
-        for (int i = 0; i < production.length(); i++) {
-            String symbol = production.substring(i, i + 1);
-            if (nullable.contains(symbol)) {
-                nullablePositions.add(i);
-            }
-        }
-
-        // Generate all possible combinations of removing nullable non-terminals
-        if (!nullablePositions.isEmpty()) {
-            // Generate all combinations of removed positions (power set)
-            int combinations = 1 << nullablePositions.size();
-
-            for (int i = 1; i < combinations; i++) { // Start from 1 to avoid empty removal
-                StringBuilder newProduction = new StringBuilder(production);
-                int offset = 0;
-
-                for (int j = 0; j < nullablePositions.size(); j++) {
-                    if ((i & (1 << j)) != 0) {
-                        int pos = nullablePositions.get(j) - offset;
-                        newProduction.deleteCharAt(pos);
-                        offset++;
-                    }
-                }
-
-                if (!newProduction.toString().isEmpty()) {
-                    result.add(newProduction.toString());
-                }
-            }
-        }
+    public CykParser toCykParser() {
+        Grammar cnf = withSingleCharTerminals().toChomskyNormalForm();
+        return new CykParser(cnf);
     }
 
-    /**
-     * Eliminates unit productions (A → B where B is a non-terminal)
-     *
-     * @param vn The non-terminal symbols
-     * @param productions The production rules
-     */
-    private void eliminateUnitProductions(List<String> vn, HashMap<String, List<String>> productions) {
-        // Find all unit pairs (A, B) such that A ⇒* B
-        Map<String, Set<String>> unitPairs = new HashMap<>();
-
-        // Initialize with reflexive unit pairs
-        for (String nonTerminal : vn) {
-            Set<String> pairs = new HashSet<>();
-            pairs.add(nonTerminal); // A ⇒* A
-            unitPairs.put(nonTerminal, pairs);
+    // The same language with every multi-char terminal replaced by its chars
+    private Grammar withSingleCharTerminals() {
+        requireContextFree();
+        boolean split = false;
+        for (int id = 0; id < symbols.size() && !split; id++) {
+            split = symbols.isTerminal(id) && symbols.name(id).length() > 1;
         }
-
-        // Compute all unit pairs using transitive closure
-        boolean changed;
-        do {
-            changed = false;
-
-            for (String a : vn) {
-                Set<String> aPairs = new HashSet<>(unitPairs.get(a));
-
-                for (String b : new HashSet<>(aPairs)) {
-                    if (productions.containsKey(b)) {
-                        List<String> bProductions = productions.get(b);
-
-                        for (String production : bProductions) {
-                            // Check if it's a unit production
-                            if (production.length() == 1 && vn.contains(production)) {
-                                String c = production;
-                                if (unitPairs.get(a).add(c)) {
-                                    changed = true;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        } while (changed);
-
-        System.out.println("Unit pairs: " + unitPairs);
-
-        // Replace unit productions
-        HashMap<String, List<String>> newProductions = new HashMap<>();
-
-        for (String nonTerminal : vn) {
-            List<String> nonUnitProductions = new ArrayList<>();
-
-            // For each unit pair (A, B), add all non-unit productions of B to A
-            if (unitPairs.containsKey(nonTerminal)) {
-                for (String unitNonTerminal : unitPairs.get(nonTerminal)) {
-                    if (productions.containsKey(unitNonTerminal)) {
-                        for (String production : productions.get(unitNonTerminal)) {
-                            // Add only non-unit productions
-                            if (!(production.length() == 1 && vn.contains(production))) {
-                                nonUnitProductions.add(production);
-                            }
-                        }
+        if (!split) return this;
+
+        SymbolTable spelled = new SymbolTable(symbols);
+        int[] heads = new int[ruleBodies.length];
+        int[][] bodies = new int[ruleBodies.length][];
+        for (int head = 0; head < symbols.size(); head++) {
+            for (int r = ruleOffsets[head]; r < ruleOffsets[head + 1]; r++) {
+                int length = 0;
+                for (int symbol : ruleBodies[r]) length += symbols.isTerminal(symbol) ? symbols.name(symbol).length() : 1;
+                int[] body = new int[length];
+                int i = 0;
+                for (int symbol : ruleBodies[r]) {
+                    if (!symbols.isTerminal(symbol)) {
+                        body[i++] = symbol;
+                        continue;
                     }
-                }
-            }
-
-            if (!nonUnitProductions.isEmpty()) {
-                newProductions.put(nonTerminal, new ArrayList<>(new HashSet<>(nonUnitProductions)));
-            } else {
-                newProductions.put(nonTerminal, new ArrayList<>());
-            }
-        }
-
-        // Replace old productions with new ones
-        productions.clear();
-        productions.putAll(newProductions);
-    }
-
-    /**
-     * Eliminates inaccessible symbols from the grammar
-     *
-     * @param vn The non-terminal symbols
-     * @param vt The terminal symbols
-     * @param startVariable The start variable
-     * @param productions The production rules
-     */
-    private void eliminateInaccessibleSymbols(List<String> vn, List<String> vt, String startVariable,
-                                              HashMap<String, List<String>> productions) {
-        // Find all accessible symbols using a breadth-first search
-        Set<String> accessible = new HashSet<>();
-        Queue<String> queue = new LinkedList<>();
-
-        // Start with the start variable
-        accessible.add(startVariable);
-        queue.add(startVariable);
-
-        // BFS to find all accessible symbols
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-
-            if (productions.containsKey(current)) {
-                for (String production : productions.get(current)) {
-                    for (int i = 0; i < production.length(); i++) {
-                        String symbol = production.substring(i, i + 1);
-
-                        // If the symbol is non-terminal and not yet visited
-                        if (vn.contains(symbol) && !accessible.contains(symbol)) {
-                            accessible.add(symbol);
-                            queue.add(symbol);
-                        }
-                        // If the symbol is terminal
-                        else if (vt.contains(symbol)) {
-                            accessible.add(symbol);
+                    for (char c : symbols.name(symbol).toCharArray()) {
+                        int id = spelled.add(String.valueOf(c), true);
+                        if (!spelled.isTerminal(id)) {
+                            throw new IllegalArgumentException("Cannot spell out " + symbols.name(symbol)
+                                    + ": " + c + " is a non-terminal");
                         }
+                        body[i++] = id;
                     }
                 }
+                heads[r] = head;
+                bodies[r] = body;
             }
         }
-
-        System.out.println("Accessible symbols: " + accessible);
-
-        // Remove inaccessible non-terminals and their productions
-        List<String> inaccessibleNT = new ArrayList<>();
-        for (String nonTerminal : new ArrayList<>(vn)) {
-            if (!accessible.contains(nonTerminal)) {
-                inaccessibleNT.add(nonTerminal);
-                productions.remove(nonTerminal);
-            }
-        }
-        vn.removeAll(inaccessibleNT);
-
-        // Remove inaccessible terminals
-        List<String> inaccessibleT = new ArrayList<>();
-        for (String terminal : new ArrayList<>(vt)) {
-            if (!accessible.contains(terminal)) {
-                inaccessibleT.add(terminal);
-            }
-        }
-        vt.removeAll(inaccessibleT);
+        return new Grammar(spelled, start, heads, bodies, ruleBodies.length);
     }
 
     /**
-     * Eliminates non-productive symbols from the grammar
+     * Builds an Earley parser over the productions of this grammar as they are, without CNF.
      *
-     * @param vn The non-terminal symbols
-     * @param vt The terminal symbols
-     * @param productions The production rules
+     * @return A parser that decides membership in the language of this grammar
      */
-    private void eliminateNonProductiveSymbols(List<String> vn, List<String> vt,
-                                               HashMap<String, List<String>> productions) {
-        // Find all productive symbols
-        Set<String> productive = new HashSet<>(vt); // All terminals are productive
-        boolean changed;
-
-        do {
-            changed = false;
-            for (String nonTerminal : new ArrayList<>(vn)) {
-                if (!productive.contains(nonTerminal) && productions.containsKey(nonTerminal)) {
-                    List<String> nonTermProductions = productions.get(nonTerminal);
-
-                    for (String production : nonTermProductions) {
-                        boolean allProductive = true;
-
-                        for (int i = 0; i < production.length(); i++) {
-                            String symbol = production.substring(i, i + 1);
-                            if (!productive.contains(symbol)) {
-                                allProductive = false;
-                                break;
-                            }
-                        }
-
-                        if (allProductive) {
-                            productive.add(nonTerminal);
-                            changed = true;
-                            break;
-                        }
-                    }
-                }
-            }
-        } while (changed);
-
-        System.out.println("Productive symbols: " + productive);
-
-        // Remove non-productive non-terminals and their productions
-        List<String> nonProductiveNT = new ArrayList<>();
-        for (String nonTerminal : new ArrayList<>(vn)) {
-            if (!productive.contains(nonTerminal)) {
-                nonProductiveNT.add(nonTerminal);
-                productions.remove(nonTerminal);
-            }
-        }
-        vn.removeAll(nonProductiveNT);
-
-        // Remove productions with non-productive symbols
-        for (String nonTerminal : new ArrayList<>(productions.keySet())) {
-            List<String> productionList = productions.get(nonTerminal);
-            List<String> toRemove = new ArrayList<>();
-
-            for (String production : productionList) {
-                for (int i = 0; i < production.length(); i++) {
-                    String symbol = production.substring(i, i + 1);
-                    if (!productive.contains(symbol)) {
-                        toRemove.add(production);
-                        break;
-                    }
-                }
-            }
-
-            productionList.removeAll(toRemove);
-
-            // Remove the non-terminal if it has no productions left
-            if (productionList.isEmpty()) {
-                productions.remove(nonTerminal);
-                vn.remove(nonTerminal);
-            }
-        }
+    public EarleyParser toEarleyParser() {
+        return new EarleyParser(this);
     }
 
     @Override
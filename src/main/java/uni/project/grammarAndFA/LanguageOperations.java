@@ -0,0 +1,424 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boolean language operations on compiled DFAs.
+ * Binary operations explore the product automaton on the fly: only pairs reachable from the pair
+ * of start states are visited, and pairs from which no accepting pair can follow are not created
+ * at all. A missing transition leads to an implicit non-accepting sink, so the two automata may
+ * use different alphabets. Witness searches are breadth-first and return the shortest string.
+ */
+final class LanguageOperations {
+    enum Operation {
+        INTERSECTION, DIFFERENCE, SYMMETRIC_DIFFERENCE;
+
+        boolean accepts(boolean a, boolean b) {
+            switch (this) {
+                case INTERSECTION: return a && b;
+                case DIFFERENCE: return a && !b;
+                default: return a != b;
+            }
+        }
+
+        // A pair that can never reach an accepting pair whatever follows
+        boolean hopeless(boolean sinkA, boolean sinkB) {
+            switch (this) {
+                case INTERSECTION: return sinkA || sinkB;
+                case DIFFERENCE: return sinkA;
+                default: return sinkA && sinkB;
+            }
+        }
+    }
+
+    static final String SINK_NAME = "∅";
+
+    private LanguageOperations() {
+    }
+
+    /**
+     * Builds the reachable part of the product automaton.
+     *
+     * @param a Left deterministic operand
+     * @param b Right deterministic operand
+     * @param operation How acceptance of the two components is combined
+     * @return The product, states named "(p, q)" after their components
+     */
+    static TransitionTable product(CompiledAutomaton a, CompiledAutomaton b, Operation operation) {
+        Product product = new Product(a, b, operation);
+        product.explore(false);
+        if (product.size == 0) {
+            // Even the start pair is hopeless: the empty language over the union alphabet
+            String name = "(" + a.stateName(a.initial) + ", " + b.stateName(b.initial) + ")";
+            int[] dense = new int[product.symbols.length];
+            Arrays.fill(dense, CompiledAutomaton.DEAD);
+            return TransitionTable.deterministic(new String[]{name}, product.symbols, 0, new boolean[1], dense);
+        }
+
+        int numSymbols = product.symbols.length;
+        int[] dense = new int[product.size * numSymbols];
+        String[] names = new String[product.size];
+        boolean[] accepting = new boolean[product.size];
+        for (int pair = 0; pair < product.size; pair++) {
+            names[pair] = "(" + product.nameA(pair) + ", " + product.nameB(pair) + ")";
+            accepting[pair] = product.accepts(pair);
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                dense[pair * numSymbols + symbol] = product.targets[pair * product.columns + product.columnOf[symbol]];
+            }
+        }
+        return TransitionTable.deterministic(names, product.symbols, 0, accepting, dense);
+    }
+
+    /**
+     * Searches the product for an accepting pair, stopping at the first one found.
+     *
+     * @param a Left deterministic operand
+     * @param b Right deterministic operand
+     * @param operation How acceptance of the two components is combined
+     * @return A shortest string accepted by the product, or null if its language is empty
+     */
+    static String witness(CompiledAutomaton a, CompiledAutomaton b, Operation operation) {
+        Product product = new Product(a, b, operation);
+        int found = product.explore(true);
+        return found == CompiledAutomaton.DEAD ? null : product.path(found);
+    }
+
+    /**
+     * Hopcroft–Karp equivalence check: the start states are merged in a union-find structure
+     * and every merge is propagated along all symbol columns. Each merge is done once, so the
+     * check runs in near-linear time in the total number of states.
+     *
+     * @param a Left deterministic operand
+     * @param b Right deterministic operand
+     * @return true if both automata accept the same strings
+     */
+    static boolean equivalent(CompiledAutomaton a, CompiledAutomaton b) {
+        return new Product(a, b, Operation.SYMMETRIC_DIFFERENCE).bisimilar();
+    }
+
+    /**
+     * Checks equivalence with {@link #equivalent} and only if the languages differ runs the
+     * breadth-first product search, which finds a shortest string in the symmetric difference.
+     *
+     * @param a Left deterministic operand
+     * @param b Right deterministic operand
+     * @return A shortest string accepted by exactly one of the automata, or null if they are equivalent
+     */
+    static String distinguishingString(CompiledAutomaton a, CompiledAutomaton b) {
+        if (equivalent(a, b)) return null;
+        return witness(a, b, Operation.SYMMETRIC_DIFFERENCE);
+    }
+
+    private static final class Product {
+        private final CompiledAutomaton a;
+        private final CompiledAutomaton b;
+        private final Operation operation;
+        private final int sinkA;
+        private final int sinkB;
+
+        // Union alphabet, and the columns of symbols that behave alike in both operands
+        private final String[] symbols;
+        private final int[] columnOf;
+        private final int columns;
+        private final int[] columnClassA;
+        private final int[] columnClassB;
+        private final int[] columnSymbol;
+
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private int[] componentA = new int[16];
+        private int[] componentB = new int[16];
+        private int[] parent = new int[16];
+        private int[] parentColumn = new int[16];
+        private int[] targets;
+        private int size;
+
+        Product(CompiledAutomaton a, CompiledAutomaton b, Operation operation) {
+            this.a = a;
+            this.b = b;
+            this.operation = operation;
+            this.sinkA = a.stateCount();
+            this.sinkB = b.stateCount();
+
+            Map<String, Integer> symbolIds = new HashMap<>();
+            List<String> union = new ArrayList<>();
+            for (String symbol : a.symbolNames) {
+                if (symbolIds.putIfAbsent(symbol, union.size()) == null) union.add(symbol);
+            }
+            for (String symbol : b.symbolNames) {
+                if (symbolIds.putIfAbsent(symbol, union.size()) == null) union.add(symbol);
+            }
+            this.symbols = union.toArray(new String[0]);
+            int[] classA = classesOver(a, symbolIds, symbols.length);
+            int[] classB = classesOver(b, symbolIds, symbols.length);
+
+            Map<Long, Integer> columnIds = new HashMap<>();
+            this.columnOf = new int[symbols.length];
+            int[] firstSymbol = new int[symbols.length];
+            for (int symbol = 0; symbol < symbols.length; symbol++) {
+                long key = ((long) classA[symbol] << 32) | (classB[symbol] & 0xFFFFFFFFL);
+                Integer column = columnIds.get(key);
+                if (column == null) {
+                    column = columnIds.size();
+                    columnIds.put(key, column);
+                    firstSymbol[column] = symbol;
+                }
+                columnOf[symbol] = column;
+            }
+            this.columns = columnIds.size();
+            this.columnClassA = new int[columns];
+            this.columnClassB = new int[columns];
+            this.columnSymbol = Arrays.copyOf(firstSymbol, columns);
+            for (int column = 0; column < columns; column++) {
+                columnClassA[column] = classA[columnSymbol[column]];
+                columnClassB[column] = classB[columnSymbol[column]];
+            }
+            this.targets = new int[16 * Math.max(columns, 1)];
+        }
+
+        // Class of every union symbol in the operand, DEAD for symbols outside its alphabet
+        private static int[] classesOver(CompiledAutomaton dfa, Map<String, Integer> symbolIds, int numSymbols) {
+            int[] classes = new int[numSymbols];
+            Arrays.fill(classes, CompiledAutomaton.DEAD);
+            for (int symbol = 0; symbol < dfa.symbolNames.length; symbol++) {
+                classes[symbolIds.get(dfa.symbolNames[symbol])] = dfa.symbolClass[symbol];
+            }
+            return classes;
+        }
+
+        /**
+         * Breadth-first exploration from the pair of start states.
+         *
+         * @param stopAtAccepting Return as soon as an accepting pair is discovered
+         * @return The first accepting pair found when stopping early, DEAD otherwise
+         */
+        int explore(boolean stopAtAccepting) {
+            int start = intern(a.initial, b.initial, CompiledAutomaton.DEAD, CompiledAutomaton.DEAD);
+            if (start == CompiledAutomaton.DEAD) return CompiledAutomaton.DEAD;
+            if (stopAtAccepting && accepts(start)) return start;
+
+            for (int pair = 0; pair < size; pair++) {
+                if ((pair + 1) * columns > targets.length) targets = Arrays.copyOf(targets, targets.length * 2);
+                for (int column = 0; column < columns; column++) {
+                    int nextA = next(a, componentA[pair], sinkA, columnClassA[column]);
+                    int nextB = next(b, componentB[pair], sinkB, columnClassB[column]);
+                    int known = size;
+                    int target = intern(nextA, nextB, pair, column);
+                    targets[pair * columns + column] = target;
+                    if (stopAtAccepting && size > known && accepts(target)) return target;
+                }
+            }
+            return CompiledAutomaton.DEAD;
+        }
+
+        // Union-find over the states of both operands, B's states (and its sink) after A's
+        boolean bisimilar() {
+            int offsetB = sinkA + 1;
+            int[] representative = new int[offsetB + sinkB + 1];
+            for (int i = 0; i < representative.length; i++) representative[i] = i;
+            int[] pending = new int[32];
+            int size = 0;
+
+            representative[find(representative, offsetB + b.initial)] = find(representative, a.initial);
+            pending[size++] = a.initial;
+            pending[size++] = b.initial;
+            while (size > 0) {
+                int stateB = pending[--size];
+                int stateA = pending[--size];
+                boolean acceptA = stateA != sinkA && a.accepting[stateA];
+                boolean acceptB = stateB != sinkB && b.accepting[stateB];
+                if (acceptA != acceptB) return false;
+
+                for (int column = 0; column < columns; column++) {
+                    int nextA = next(a, stateA, sinkA, columnClassA[column]);
+                    int nextB = next(b, stateB, sinkB, columnClassB[column]);
+                    int rootA = find(representative, nextA);
+                    int rootB = find(representative, offsetB + nextB);
+                    if (rootA == rootB) continue;
+                    representative[rootB] = rootA;
+                    if (size + 2 > pending.length) pending = Arrays.copyOf(pending, pending.length * 2);
+                    pending[size++] = nextA;
+                    pending[size++] = nextB;
+                }
+            }
+            return true;
+        }
+
+        // Path halving keeps the trees shallow without recursion
+        private static int find(int[] representative, int element) {
+            while (representative[element] != element) {
+                representative[element] = representative[representative[element]];
+                element = representative[element];
+            }
+            return element;
+        }
+
+        private static int next(CompiledAutomaton dfa, int state, int sink, int symbolClass) {
+            if (state == sink || symbolClass == CompiledAutomaton.DEAD) return sink;
+            int target = dfa.transitions[state * dfa.classCount + symbolClass];
+            return target == CompiledAutomaton.DEAD ? sink : target;
+        }
+
+        // Returns the id of the pair, creating it if it is new, or DEAD if the pair is hopeless
+        private int intern(int stateA, int stateB, int from, int column) {
+            if (operation.hopeless(stateA == sinkA, stateB == sinkB)) return CompiledAutomaton.DEAD;
+            long key = (long) stateA * (sinkB + 1) + stateB;
+            Integer known = ids.get(key);
+            if (known != null) return known;
+
+            if (size == componentA.length) {
+                componentA = Arrays.copyOf(componentA, size * 2);
+                componentB = Arrays.copyOf(componentB, size * 2);
+                parent = Arrays.copyOf(parent, size * 2);
+                parentColumn = Arrays.copyOf(parentColumn, size * 2);
+            }
+            componentA[size] = stateA;
+            componentB[size] = stateB;
+            parent[size] = from;
+            parentColumn[size] = column;
+            ids.put(key, size);
+            return size++;
+        }
+
+        boolean accepts(int pair) {
+            boolean acceptA = componentA[pair] != sinkA && a.accepting[componentA[pair]];
+            boolean acceptB = componentB[pair] != sinkB && b.accepting[componentB[pair]];
+            return operation.accepts(acceptA, acceptB);
+        }
+
+        String nameA(int pair) {
+            return componentA[pair] == sinkA ? SINK_NAME : a.stateName(componentA[pair]);
+        }
+
+        String nameB(int pair) {
+            return componentB[pair] == sinkB ? SINK_NAME : b.stateName(componentB[pair]);
+        }
+
+        // The symbols along the BFS tree from the start pair
+        String path(int pair) {
+            List<String> reversed = new ArrayList<>();
+            for (int current = pair; parent[current] != CompiledAutomaton.DEAD; current = parent[current]) {
+                reversed.add(symbols[columnSymbol[parentColumn[current]]]);
+            }
+            StringBuilder path = new StringBuilder();
+            for (int i = reversed.size() - 1; i >= 0; i--) path.append(reversed.get(i));
+            return path.toString();
+        }
+    }
+
+    /**
+     * Complements a DFA over its own alphabet: missing transitions are routed to a new
+     * sink state and final and non-final states swap roles.
+     *
+     * @param dfa A deterministic automaton
+     * @return The complement
+     */
+    static TransitionTable complement(CompiledAutomaton dfa) {
+        int states = dfa.stateCount();
+        int numSymbols = dfa.symbolNames.length;
+        boolean complete = true;
+        for (int target : dfa.transitions) complete &= target != CompiledAutomaton.DEAD;
+        int total = complete ? states : states + 1;
+
+        String[] names = new String[total];
+        boolean[] accepting = new boolean[total];
+        int[] dense = new int[total * numSymbols];
+        for (int state = 0; state < total; state++) {
+            boolean sink = state == states;
+            names[state] = sink ? uniqueSinkName(dfa) : dfa.stateName(state);
+            accepting[state] = sink || !dfa.accepting[state];
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                int target = sink ? CompiledAutomaton.DEAD : dfa.transitions[state * dfa.classCount + dfa.symbolClass[symbol]];
+                dense[state * numSymbols + symbol] = target == CompiledAutomaton.DEAD ? states : target;
+            }
+        }
+        return TransitionTable.deterministic(names, dfa.symbolNames, dfa.initial, accepting, dense);
+    }
+
+    private static String uniqueSinkName(CompiledAutomaton dfa) {
+        String name = SINK_NAME;
+        boolean taken = true;
+        while (taken) {
+            taken = false;
+            for (int state = 0; state < dfa.stateCount() && !taken; state++) taken = dfa.stateName(state).equals(name);
+            if (taken) name += "'";
+        }
+        return name;
+    }
+
+    /**
+     * Breadth-first search for a shortest accepted string. NFAs are searched on their own
+     * states, so they need no determinization.
+     *
+     * @param automaton A compiled automaton, deterministic or not
+     * @return A shortest accepted string, or null if the language is empty
+     */
+    static String shortestString(CompiledAutomaton automaton) {
+        int states = automaton.stateCount();
+        int[] parent = new int[states];
+        int[] parentClass = new int[states];
+        boolean[] visited = new boolean[states];
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+
+        if (automaton.isDeterministic()) {
+            visited[automaton.initial] = true;
+            parent[automaton.initial] = CompiledAutomaton.DEAD;
+            queue[tail++] = automaton.initial;
+        } else {
+            for (int state = 0; state < states; state++) {
+                if ((automaton.initialSet[state >>> 6] & (1L << state)) == 0) continue;
+                visited[state] = true;
+                parent[state] = CompiledAutomaton.DEAD;
+                queue[tail++] = state;
+            }
+        }
+
+        while (head < tail) {
+            int state = queue[head++];
+            if (automaton.accepting[state]) return path(automaton, parent, parentClass, state);
+            for (int c = 0; c < automaton.classCount; c++) {
+                if (automaton.isDeterministic()) {
+                    int target = automaton.transitions[state * automaton.classCount + c];
+                    if (target == CompiledAutomaton.DEAD || visited[target]) continue;
+                    visited[target] = true;
+                    parent[target] = state;
+                    parentClass[target] = c;
+                    queue[tail++] = target;
+                } else {
+                    int offset = (state * automaton.classCount + c) * automaton.words;
+                    for (int w = 0; w < automaton.words; w++) {
+                        long bits = automaton.successors[offset + w];
+                        while (bits != 0) {
+                            int target = (w << 6) | Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            if (visited[target]) continue;
+                            visited[target] = true;
+                            parent[target] = state;
+                            parentClass[target] = c;
+                            queue[tail++] = target;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String path(CompiledAutomaton automaton, int[] parent, int[] parentClass, int state) {
+        String[] classSymbol = new String[automaton.classCount];
+        for (int symbol = automaton.symbolNames.length - 1; symbol >= 0; symbol--) {
+            classSymbol[automaton.symbolClass[symbol]] = automaton.symbolNames[symbol];
+        }
+        List<String> reversed = new ArrayList<>();
+        for (int current = state; parent[current] != CompiledAutomaton.DEAD; current = parent[current]) {
+            reversed.add(classSymbol[parentClass[current]]);
+        }
+        StringBuilder path = new StringBuilder();
+        for (int i = reversed.size() - 1; i >= 0; i--) path.append(reversed.get(i));
+        return path.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-the-fly determinization of a compiled NFA.
+ * A DFA state (a set of NFA states) and its transitions are materialized only when some
+ * input first reaches them. At most {@code maxCachedStates} DFA states are kept: when the
+ * cache is full it is flushed, and a match that keeps flushing finishes with plain bitset
+ * simulation of the NFA, so memory stays bounded whatever the input.
+ * <p>
+ * Instances keep mutable cache state and are not thread-safe.
+ */
+public final class LazyDfa {
+    private static final int UNKNOWN = -2;
+    private static final int MAX_FLUSHES_PER_MATCH = 3;
+
+    private final CompiledAutomaton nfa;
+    private final int maxCachedStates;
+    private final int numClasses;
+    private final StateSet initialSet;
+
+    private final Map<StateSet, Integer> stateIds = new HashMap<>();
+    private final List<StateSet> states = new ArrayList<>();
+    private final int[] transitions; // state * numClasses + class -> target, DEAD or UNKNOWN
+    private final boolean[] accepting;
+    private final long[] scratch;
+    private int flushes;
+
+    LazyDfa(CompiledAutomaton nfa, int maxCachedStates) {
+        if (maxCachedStates < 1) throw new IllegalArgumentException("Cache must hold at least one state");
+        this.nfa = nfa;
+        this.maxCachedStates = maxCachedStates;
+        this.numClasses = nfa.classCount;
+        this.transitions = new int[maxCachedStates * numClasses];
+        this.accepting = new boolean[maxCachedStates];
+        this.scratch = new long[nfa.words];
+        this.initialSet = nfa.isDeterministic() ? null : new StateSet(nfa.initialSet.clone());
+        Arrays.fill(transitions, UNKNOWN);
+    }
+
+    public boolean accepts(CharSequence input) {
+        if (nfa.isDeterministic()) return nfa.accepts(input);
+
+        int flushesAtStart = flushes;
+        int state = intern(initialSet);
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = nfa.classOf(input.charAt(i));
+            if (symbol == CompiledAutomaton.DEAD) return false;
+
+            int next = transitions[state * numClasses + symbol];
+            if (next == UNKNOWN) {
+                StateSet current = states.get(state);
+                if (!nfa.step(current.words, symbol, scratch)) {
+                    next = CompiledAutomaton.DEAD;
+                    transitions[state * numClasses + symbol] = next;
+                } else {
+                    StateSet target = new StateSet(scratch.clone());
+                    int before = flushes;
+                    next = intern(target);
+                    if (flushes == before) {
+                        transitions[state * numClasses + symbol] = next;
+                    } else if (flushes - flushesAtStart > MAX_FLUSHES_PER_MATCH) {
+                        // The cache is thrashing on this input, finish without materializing states
+                        return nfa.simulate(input, i + 1, target.words.clone(), new long[nfa.words]);
+                    }
+                }
+            }
+            if (next == CompiledAutomaton.DEAD) return false;
+            state = next;
+        }
+        return accepting[state];
+    }
+
+    private int intern(StateSet set) {
+        Integer id = stateIds.get(set);
+        if (id != null) return id;
+
+        if (states.size() == maxCachedStates) flush();
+        int newId = states.size();
+        states.add(set);
+        stateIds.put(set, newId);
+        accepting[newId] = CompiledAutomaton.intersects(set.words, nfa.acceptingSet);
+        return newId;
+    }
+
+    private void flush() {
+        Arrays.fill(transitions, 0, states.size() * numClasses, UNKNOWN);
+        states.clear();
+        stateIds.clear();
+        flushes++;
+    }
+
+    public int cachedStateCount() {
+        return states.size();
+    }
+
+    public int flushCount() {
+        return flushes;
+    }
+}
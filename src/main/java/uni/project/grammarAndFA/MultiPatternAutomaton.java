@@ -0,0 +1,109 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Union DFA over several automata that reports which of them accept an input.
+ * The patterns are joined into one NFA (a fresh start state with ε-transitions to the start of
+ * every pattern) and determinized, so every DFA state knows the set of patterns whose final states
+ * it contains. A single pass over the input then answers membership for all patterns at once.
+ * <p>
+ * Pattern ids are the positions in the list the automaton was built from.
+ */
+public final class MultiPatternAutomaton {
+    private final CompiledAutomaton dfa;
+    private final int patternCount;
+    private final int patternWords; // Longs per match set
+    private final long[] matches; // state * patternWords -> ids of the patterns accepting in that state
+
+    /**
+     * @param patterns The automata to combine, deterministic or not
+     */
+    public MultiPatternAutomaton(List<FiniteAutomaton> patterns) {
+        this.patternCount = patterns.size();
+        this.patternWords = Math.max(1, CompiledAutomaton.wordsFor(patternCount));
+
+        // Step 1: disjoint union, state s of pattern i becomes "i:s"
+        TransitionTable.Builder builder = new TransitionTable.Builder();
+        builder.setInitial("start");
+        for (int id = 0; id < patternCount; id++) {
+            FiniteAutomaton pattern = patterns.get(id);
+            String prefix = id + ":";
+            for (String state : pattern.Q) builder.addState(prefix + state);
+            for (String symbol : pattern.Sigma) {
+                if (!symbol.equals("ε")) builder.addSymbol(symbol);
+            }
+            builder.addTransition("start", "ε", prefix + pattern.q0);
+            for (Map.Entry<HashMap<String, String>, List<String>> entry : pattern.delta.entrySet()) {
+                Map.Entry<String, String> key = entry.getKey().entrySet().iterator().next();
+                for (String to : entry.getValue()) builder.addTransition(prefix + key.getKey(), key.getValue(), prefix + to);
+            }
+            for (String finalState : pattern.F) builder.addFinal(prefix + finalState);
+        }
+        TransitionTable union = builder.build();
+
+        // Step 2: remember which pattern every accepting NFA state belongs to
+        int[] patternOf = new int[union.stateCount()];
+        Arrays.fill(patternOf, CompiledAutomaton.DEAD);
+        for (int state = 0; state < patternOf.length; state++) {
+            String name = union.stateName(state);
+            if (union.isFinal(state)) patternOf[state] = Integer.parseInt(name.substring(0, name.indexOf(':')));
+        }
+
+        // Step 3: determinize and collect the match set of every DFA state
+        this.dfa = SubsetConstruction.determinize(CompiledAutomaton.of(union, true));
+        this.matches = new long[dfa.stateCount() * patternWords];
+        for (int state = 0; state < dfa.stateCount(); state++) {
+            if (!dfa.accepting[state]) continue;
+            long[] members = dfa.subset(state).words;
+            for (int w = 0; w < members.length; w++) {
+                long bits = members[w];
+                while (bits != 0) {
+                    int nfaState = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int id = patternOf[nfaState];
+                    if (id != CompiledAutomaton.DEAD) matches[state * patternWords + (id >>> 6)] |= 1L << id;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param input The string to classify
+     * @return The ids of all patterns whose language contains the input
+     */
+    public BitSet matches(CharSequence input) {
+        int state = dfa.initial;
+        int numClasses = dfa.classCount;
+        for (int i = 0; i < input.length(); i++) {
+            int c = dfa.classOf(input.charAt(i));
+            if (c == CompiledAutomaton.DEAD) return new BitSet();
+            state = dfa.transitions[state * numClasses + c];
+            if (state == CompiledAutomaton.DEAD) return new BitSet();
+        }
+        return BitSet.valueOf(Arrays.copyOfRange(matches, state * patternWords, (state + 1) * patternWords));
+    }
+
+    /**
+     * @param input The string to check
+     * @return true if at least one pattern accepts the input
+     */
+    public boolean matchesAny(CharSequence input) {
+        return dfa.accepts(input);
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /**
+     * @return The number of states of the combined DFA
+     */
+    public int stateCount() {
+        return dfa.stateCount();
+    }
+}
@@ -0,0 +1,198 @@
+package uni.project.grammarAndFA;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Shared packed parse forest of one input, as built by {@link EarleyParser#parseForest(CharSequence)}.
+ * There are two kinds of nodes, both for a span [from, to) of the input:
+ * <ul>
+ *     <li>symbol nodes: a non-terminal deriving the span, with one family per matching rule</li>
+ *     <li>prefix nodes: the symbols of a rule up to a dot deriving the span, with one family per split point</li>
+ * </ul>
+ * A family is a (left, right) pair: the shorter prefix and the last symbol before the dot. Every rule
+ * is binarized this way, so the forest stays polynomial in the input length even when the number of
+ * trees is exponential. Nodes and families live in flat int arrays, families in CSR form.
+ * <p>
+ * Trees are never stored: they are counted with {@link BigInteger} per node and built one at a time
+ * by unranking a tree index.
+ */
+public final class ParseForest {
+    static final int EMPTY = -1; // Child deriving ε, also the right child of symbol node families
+    static final int TERMINAL = -2; // Child matching the terminal before the dot
+
+    private final String input;
+    private final String[] nonTerminals;
+    private final String[] terminals;
+    private final int[] symbols;
+    private final int symbolLabels; // Labels from here on are non-terminals, below are dot positions
+
+    private final int[] labels;
+    private final int[] familyOffsets;
+    private final int[] familyLeft;
+    private final int[] familyRight;
+
+    private BigInteger[] counts; // Trees per node, computed on first use
+
+    ParseForest(String input, String[] nonTerminals, String[] terminals, int[] symbols, int symbolLabels,
+                int[] labels, int[] familyOffsets, int[] familyLeft, int[] familyRight) {
+        this.input = input;
+        this.nonTerminals = nonTerminals;
+        this.terminals = terminals;
+        this.symbols = symbols;
+        this.symbolLabels = symbolLabels;
+        this.labels = labels;
+        this.familyOffsets = familyOffsets;
+        this.familyLeft = familyLeft;
+        this.familyRight = familyRight;
+    }
+
+    /**
+     * @return The number of distinct parse trees of the input
+     * @throws IllegalStateException If a cycle of unit or ε rules gives infinitely many trees
+     */
+    public BigInteger treeCount() {
+        return counts()[0];
+    }
+
+    public boolean isAmbiguous() {
+        return treeCount().compareTo(BigInteger.ONE) > 0;
+    }
+
+    /**
+     * Builds a single parse tree without materializing the others.
+     *
+     * @param index The tree to build, from 0 to {@link #treeCount()} - 1
+     * @return The tree in bracket form, for example {@code S(A(a) B(b))}, with {@code A(ε)} for ε-rules
+     */
+    public String tree(BigInteger index) {
+        BigInteger[] counts = counts();
+        if (index.signum() < 0 || index.compareTo(counts[0]) >= 0) {
+            throw new IndexOutOfBoundsException("Tree " + index + " of " + counts[0]);
+        }
+
+        // Explicit stack of pending {node, tree index} pairs and literal text
+        StringBuilder tree = new StringBuilder();
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(new Object[]{0, index});
+        while (!stack.isEmpty()) {
+            Object top = stack.pop();
+            if (top instanceof String) {
+                tree.append((String) top);
+                continue;
+            }
+            int node = (Integer) ((Object[]) top)[0];
+            BigInteger rank = (BigInteger) ((Object[]) top)[1];
+
+            // Pick the family holding the rank, then split the rest of it between the two children
+            int family = familyOffsets[node];
+            for (; ; family++) {
+                BigInteger familyCount = count(familyLeft[family]).multiply(count(familyRight[family]));
+                if (rank.compareTo(familyCount) < 0) break;
+                rank = rank.subtract(familyCount);
+            }
+            int left = familyLeft[family];
+            int right = familyRight[family];
+            BigInteger[] split = rank.divideAndRemainder(count(right));
+
+            if (labels[node] >= symbolLabels) {
+                tree.append(nonTerminals[labels[node] - symbolLabels]).append('(');
+                stack.push(")");
+                stack.push(left == EMPTY ? "ε" : new Object[]{left, split[0]});
+                continue;
+            }
+            int symbol = symbols[labels[node] - 1];
+            stack.push(symbol < 0 ? terminals[-symbol - 2] : new Object[]{right, split[1]});
+            if (left != EMPTY) {
+                stack.push(" ");
+                stack.push(new Object[]{left, split[0]});
+            }
+        }
+        return tree.toString();
+    }
+
+    /**
+     * @return All parse trees in index order, each built only when it is reached
+     */
+    public Iterator<String> trees() {
+        BigInteger total = treeCount();
+        return new Iterator<String>() {
+            private BigInteger next = BigInteger.ZERO;
+
+            @Override
+            public boolean hasNext() {
+                return next.compareTo(total) < 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                String tree = tree(next);
+                next = next.add(BigInteger.ONE);
+                return tree;
+            }
+        };
+    }
+
+    public String input() {
+        return input;
+    }
+
+    public int nodeCount() {
+        return labels.length;
+    }
+
+    public int familyCount() {
+        return familyLeft.length;
+    }
+
+    private BigInteger count(int child) {
+        return child < 0 ? BigInteger.ONE : counts[child];
+    }
+
+    // Post-order over the nodes with an explicit stack; a node reached again while open is a cycle
+    private BigInteger[] counts() {
+        if (counts != null) return counts;
+        BigInteger[] result = new BigInteger[labels.length];
+        byte[] state = new byte[labels.length]; // 0 new, 1 open, 2 counted
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[size - 1];
+            if (state[node] == 2) {
+                size--;
+                continue;
+            }
+            if (state[node] == 0) {
+                state[node] = 1;
+                for (int f = familyOffsets[node]; f < familyOffsets[node + 1]; f++) {
+                    for (int child : new int[]{familyLeft[f], familyRight[f]}) {
+                        if (child < 0 || state[child] == 2) continue;
+                        if (state[child] == 1) {
+                            throw new IllegalStateException("Infinitely many parse trees for \"" + input + "\"");
+                        }
+                        if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+                        stack[size++] = child;
+                    }
+                }
+                continue;
+            }
+            BigInteger total = BigInteger.ZERO;
+            for (int f = familyOffsets[node]; f < familyOffsets[node + 1]; f++) {
+                BigInteger left = familyLeft[f] < 0 ? BigInteger.ONE : result[familyLeft[f]];
+                BigInteger right = familyRight[f] < 0 ? BigInteger.ONE : result[familyRight[f]];
+                total = total.add(left.multiply(right));
+            }
+            result[node] = total;
+            state[node] = 2;
+            size--;
+        }
+        counts = result;
+        return counts;
+    }
+}
@@ -0,0 +1,275 @@
+package uni.project.grammarAndFA;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Random sentence generator for a {@link Grammar}. Derivations are expanded leftmost-first on an
+ * explicit stack of symbol ids, so a sentence costs time linear in its derivation size.
+ * <p>
+ * Every non-terminal knows the length of its shortest sentence and the rule that reaches it,
+ * found with Knuth's generalization of Dijkstra's algorithm. A rule is only chosen if the sentence
+ * can still be finished within the length budget. From the depth budget on, or once a derivation has
+ * expanded more non-terminals than its node budget, only the shortest rule is taken. The length
+ * budget alone cannot bound nullable rules such as {@code S → SS | ε}, so the node budget, which
+ * grows linearly with the length budget, is what keeps the derivation linear in size. Those shortest
+ * rules never cycle, so every sentence costs at most the node budget plus one shortest expansion
+ * per pending symbol, even for recursive rules such as {@code A → AbAa}.
+ * <p>
+ * Instances are immutable; randomness comes from the {@link SplittableRandom} passed in.
+ * Bulk generation cuts the sentences into fixed blocks and gives every block its own generator,
+ * seeded from a hash of the master seed and the block index, so the output only depends on the seed
+ * and not on the thread count, and no block needs the generators of the blocks before it.
+ */
+public final class SentenceGenerator {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int NODES_PER_CHAR = 16; // Free rule choices per char of the length budget
+    private static final int BLOCK_SIZE = 1024; // Sentences per block
+    private static final int WAVE_BLOCKS = 64; // Blocks generated in parallel before they are written
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // SplitMix64 increment
+
+    private final Grammar grammar;
+    private final int maxLength;
+    private final int maxDepth;
+    private final long maxNodes; // Expansions after which only the shortest rules are used
+    private final int[] minLength; // Shortest sentence of every symbol, UNREACHABLE if none
+    private final int[] ruleMin; // Shortest sentence of every rule body
+    private final int[] exitRule; // Rule of every non-terminal reaching its shortest sentence
+    private final String[] terminals; // Name of every terminal symbol, null for non-terminals
+
+    /**
+     * @param grammar The grammar to generate from
+     * @param maxLength The longest sentence to generate, in chars
+     * @param maxDepth The derivation depth from which only the shortest rules are used
+     * @throws IllegalStateException If the start variable derives no finite sentence, or a rule has
+     *                               more than one symbol on its left side
+     */
+    public SentenceGenerator(Grammar grammar, int maxLength, int maxDepth) {
+        grammar.requireContextFree();
+        this.grammar = grammar;
+        this.maxLength = maxLength;
+        this.maxDepth = maxDepth;
+        this.maxNodes = NODES_PER_CHAR * (maxLength + 1L);
+        SymbolTable symbols = grammar.symbols;
+        int ruleCount = grammar.ruleBodies.length;
+        this.minLength = new int[symbols.size()];
+        this.ruleMin = new int[ruleCount];
+        this.exitRule = new int[symbols.size()];
+        Arrays.fill(minLength, UNREACHABLE);
+        Arrays.fill(exitRule, -1);
+        this.terminals = new String[symbols.size()];
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            if (symbols.isTerminal(symbol)) terminals[symbol] = symbols.name(symbol);
+        }
+
+        // Step 1: a rule is ready once all of its non-terminals have a final length
+        int[] heads = new int[ruleCount];
+        int[] pending = new int[ruleCount];
+        int[] offsets = new int[symbols.size() + 1];
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            if (symbols.isTerminal(symbol)) minLength[symbol] = symbols.name(symbol).length();
+            for (int r = grammar.ruleOffsets[symbol]; r < grammar.ruleOffsets[symbol + 1]; r++) {
+                heads[r] = symbol;
+                for (int part : grammar.ruleBodies[r]) {
+                    if (symbols.isTerminal(part)) {
+                        ruleMin[r] += symbols.name(part).length();
+                    } else {
+                        pending[r]++;
+                        offsets[part + 1]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < symbols.size(); i++) offsets[i + 1] += offsets[i];
+        int[] occurrences = new int[offsets[symbols.size()]];
+        int[] fill = offsets.clone();
+        PriorityQueue<long[]> queue = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        for (int r = 0; r < ruleCount; r++) {
+            for (int part : grammar.ruleBodies[r]) {
+                if (!symbols.isTerminal(part)) occurrences[fill[part]++] = r;
+            }
+            if (pending[r] == 0) queue.add(new long[]{ruleMin[r], r});
+        }
+
+        // Step 2: settle non-terminals in order of their shortest sentence
+        while (!queue.isEmpty()) {
+            long[] top = queue.poll();
+            int rule = (int) top[1];
+            int head = heads[rule];
+            if (exitRule[head] >= 0) continue;
+            exitRule[head] = rule;
+            minLength[head] = (int) Math.min(top[0], UNREACHABLE - 1);
+            for (int i = offsets[head]; i < offsets[head + 1]; i++) {
+                int r = occurrences[i];
+                ruleMin[r] = (int) Math.min((long) ruleMin[r] + minLength[head], UNREACHABLE - 1);
+                if (--pending[r] == 0) queue.add(new long[]{ruleMin[r], r});
+            }
+        }
+        for (int r = 0; r < ruleCount; r++) {
+            if (pending[r] > 0) ruleMin[r] = UNREACHABLE;
+        }
+
+        if (minLength[grammar.start] == UNREACHABLE) {
+            throw new IllegalStateException("The start variable " + symbols.name(grammar.start) + " derives no sentence");
+        }
+    }
+
+    /**
+     * @param random The source of randomness, used by this call only
+     * @return A random sentence of the grammar, no longer than the length budget unless even the
+     *         shortest sentence is longer
+     */
+    public String next(SplittableRandom random) {
+        int[] ruleOffsets = grammar.ruleOffsets;
+        StringBuilder sentence = new StringBuilder();
+        int[] stack = new int[16];
+        int[] depths = new int[16];
+        int size = 0;
+        stack[size] = grammar.start;
+        depths[size++] = 0;
+        // Output so far plus the shortest completion of everything still on the stack
+        long committed = minLength[grammar.start];
+        long expanded = 0;
+
+        while (size > 0) {
+            int symbol = stack[--size];
+            int depth = depths[size];
+            if (terminals[symbol] != null) {
+                sentence.append(terminals[symbol]);
+                continue;
+            }
+
+            int rule = exitRule[symbol];
+            if (depth < maxDepth && expanded++ < maxNodes) {
+                // Uniform choice among the rules that still fit the length budget
+                long slack = maxLength - committed + minLength[symbol];
+                int first = ruleOffsets[symbol];
+                int last = ruleOffsets[symbol + 1];
+                int allowed = 0;
+                for (int r = first; r < last; r++) {
+                    if (ruleMin[r] <= slack) allowed++;
+                }
+                if (allowed > 0) {
+                    int pick = random.nextInt(allowed);
+                    for (int r = first; r < last; r++) {
+                        if (ruleMin[r] <= slack && pick-- == 0) {
+                            rule = r;
+                            break;
+                        }
+                    }
+                }
+            }
+            committed += ruleMin[rule] - minLength[symbol];
+
+            int[] body = grammar.ruleBodies[rule];
+            if (size + body.length > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, size + body.length));
+                depths = Arrays.copyOf(depths, stack.length);
+            }
+            for (int i = body.length - 1; i >= 0; i--) {
+                stack[size] = body[i];
+                depths[size++] = depth + 1;
+            }
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * @param seed The seed of a fresh {@link SplittableRandom}
+     * @return The same sentence for the same seed
+     */
+    public String next(long seed) {
+        return next(new SplittableRandom(seed));
+    }
+
+    /**
+     * Generates sentences in parallel blocks. Sentence i always comes from block i / 1024, whose
+     * generator is created when the block is generated, from the master seed and the block index.
+     *
+     * @param count The number of sentences
+     * @param seed The master seed
+     * @return The sentences in order, generated lazily block by block
+     */
+    public Stream<String> stream(long count, long seed) {
+        int blocks = blockCount(count);
+        return IntStream.range(0, blocks).parallel()
+                .boxed()
+                .flatMap(block -> {
+                    SplittableRandom random = blockRandom(seed, block);
+                    return IntStream.range(0, blockSize(count, block)).mapToObj(i -> next(random));
+                });
+    }
+
+    /**
+     * Writes the same sentences as {@link #stream(long, long)}, one per line in UTF-8. Waves of blocks
+     * are generated in parallel and written in order through a file channel, so only one wave is
+     * held in memory at a time.
+     *
+     * @param file The file to create or overwrite
+     * @param count The number of sentences
+     * @param seed The master seed
+     * @return The number of bytes written
+     * @throws UncheckedIOException If the file cannot be written
+     */
+    public long writeTo(Path file, long count, long seed) {
+        int blocks = blockCount(count);
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int wave = 0; wave < blocks; wave += WAVE_BLOCKS) {
+                byte[][] encoded = IntStream.range(wave, Math.min(wave + WAVE_BLOCKS, blocks)).parallel()
+                        .mapToObj(block -> encodeBlock(blockRandom(seed, block), blockSize(count, block)))
+                        .toArray(byte[][]::new);
+                for (byte[] block : encoded) {
+                    ByteBuffer buffer = ByteBuffer.wrap(block);
+                    while (buffer.hasRemaining()) written += channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write sentences to " + file, e);
+        }
+        return written;
+    }
+
+    private byte[] encodeBlock(SplittableRandom random, int size) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < size; i++) lines.append(next(random)).append('\n');
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int blockCount(long count) {
+        if (count < 0) throw new IllegalArgumentException("Negative sentence count: " + count);
+        long blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (blocks > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many sentences: " + count);
+        return (int) blocks;
+    }
+
+    // The seed of a block is the SplitMix64 output at position block + 1 of the master seed
+    private static SplittableRandom blockRandom(long seed, int block) {
+        long z = seed + (block + 1L) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private static int blockSize(long count, int block) {
+        return (int) Math.min(BLOCK_SIZE, count - (long) block * BLOCK_SIZE);
+    }
+
+    /**
+     * @return The length of the shortest sentence of the grammar
+     */
+    public int shortestLength() {
+        return minLength[grammar.start];
+    }
+}
@@ -0,0 +1,151 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Enumerates the strings of a compiled DFA in shortlex order: by length, then by char.
+ * <p>
+ * The product of the automaton with the remaining length is searched backwards first:
+ * {@code live[k]} holds the states from which an accepting state is reached in exactly k steps.
+ * Strings of length n are then walked depth-first in char order, and a char is only taken if its
+ * target is live for the remaining length, so every step leads to a string. A DFA reads every
+ * string along one path, so no string is produced twice. Only single-char symbols are used,
+ * the same ones that {@link CompiledAutomaton#accepts(CharSequence)} matches.
+ */
+final class ShortlexIterator implements Iterator<String> {
+    private final CompiledAutomaton dfa;
+    private final int maxLength;
+    private final char[] letters; // Single-char symbols in ascending order
+    private final int[] letterClass;
+    private final int words; // Longs per layer of live
+    private final long[] live; // Bit k * words * 64 + state: state accepts some string of length k
+
+    private final char[] buffer;
+    private final int[] states; // states[i]: the state after the first i chars of the buffer
+    private final int[] letterIndex; // letterIndex[i]: the letter at position i of the buffer
+    private int length; // Length of the strings currently enumerated
+    private boolean started; // false until the first string of the current length was searched
+    private String next;
+
+    ShortlexIterator(CompiledAutomaton dfa, int maxLength) {
+        if (!dfa.isDeterministic()) throw new IllegalArgumentException("Shortlex enumeration needs a DFA");
+        if (maxLength < 0) throw new IllegalArgumentException("Negative length bound: " + maxLength);
+        this.dfa = dfa;
+        this.maxLength = maxLength;
+
+        // Step 1: the letters in char order with their symbol classes
+        int count = 0;
+        for (String symbol : dfa.symbolNames) {
+            if (symbol.length() == 1) count++;
+        }
+        long[] sorted = new long[count];
+        count = 0;
+        for (int symbol = 0; symbol < dfa.symbolNames.length; symbol++) {
+            if (dfa.symbolNames[symbol].length() != 1) continue;
+            sorted[count++] = ((long) dfa.symbolNames[symbol].charAt(0) << 32) | dfa.symbolClass[symbol];
+        }
+        Arrays.sort(sorted);
+        this.letters = new char[count];
+        this.letterClass = new int[count];
+        for (int i = 0; i < count; i++) {
+            letters[i] = (char) (sorted[i] >>> 32);
+            letterClass[i] = (int) sorted[i];
+        }
+
+        // Step 2: live states layer by layer, a state is live for k if some letter leads to a state live for k - 1
+        int stateCount = dfa.stateCount();
+        this.words = CompiledAutomaton.wordsFor(stateCount);
+        this.live = new long[(maxLength + 1) * words];
+        for (int state = 0; state < stateCount; state++) {
+            if (dfa.accepting[state]) live[state >>> 6] |= 1L << state;
+        }
+        for (int k = 1; k <= maxLength; k++) {
+            for (int state = 0; state < stateCount; state++) {
+                for (int c : letterClass) {
+                    int target = dfa.transitions[state * dfa.classCount + c];
+                    if (target != CompiledAutomaton.DEAD && isLive(k - 1, target)) {
+                        live[k * words + (state >>> 6)] |= 1L << state;
+                        break;
+                    }
+                }
+            }
+        }
+
+        this.buffer = new char[maxLength];
+        this.states = new int[maxLength + 1];
+        this.letterIndex = new int[maxLength + 1];
+        states[0] = dfa.initial;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = advance();
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        String string = next;
+        next = null;
+        return string;
+    }
+
+    // The next string in shortlex order, or null after the last one
+    private String advance() {
+        while (length <= maxLength) {
+            int depth;
+            if (!started) {
+                started = true;
+                if (!isLive(length, dfa.initial)) {
+                    length++;
+                    started = false;
+                    continue;
+                }
+                depth = 0;
+                if (length > 0) letterIndex[0] = -1;
+            } else if (length == 0) {
+                length++;
+                started = false;
+                continue;
+            } else {
+                // The previous string ends at the buffer end, change its last char first
+                depth = length - 1;
+            }
+
+            while (depth < length) {
+                if (nextLetter(depth)) {
+                    if (++depth < length) letterIndex[depth] = -1;
+                } else if (depth == 0) {
+                    break;
+                } else {
+                    depth--;
+                }
+            }
+            if (depth == length) return new String(buffer, 0, length);
+            length++;
+            started = false;
+        }
+        return null;
+    }
+
+    // Moves position to its next letter whose target can still finish a string of the current length
+    private boolean nextLetter(int position) {
+        int remaining = length - position - 1;
+        for (int index = letterIndex[position] + 1; index < letters.length; index++) {
+            int target = dfa.transitions[states[position] * dfa.classCount + letterClass[index]];
+            if (target == CompiledAutomaton.DEAD || !isLive(remaining, target)) continue;
+            letterIndex[position] = index;
+            buffer[position] = letters[index];
+            states[position + 1] = target;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isLive(int remaining, int state) {
+        return (live[remaining * words + (state >>> 6)] & (1L << state)) != 0;
+    }
+}
@@ -0,0 +1,41 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of NFA state ids stored as a bitset, with its hash computed once.
+ * Used as the key of subset-construction and lazy-DFA state maps.
+ */
+final class StateSet {
+    final long[] words;
+    private final int hash;
+
+    StateSet(long[] words) {
+        this.words = words;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    boolean contains(int state) {
+        return (words[state >>> 6] & (1L << state)) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StateSet)) return false;
+        StateSet other = (StateSet) o;
+        return hash == other.hash && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
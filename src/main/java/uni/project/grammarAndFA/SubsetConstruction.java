@@ -0,0 +1,192 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Subset construction over the bitset form of a compiled NFA.
+ * DFA states get int ids in BFS discovery order and are keyed by {@link StateSet};
+ * the successor rows of the compiled NFA are already ε-closed, so a move is a word-wide OR.
+ */
+final class SubsetConstruction {
+    // Frontier slices below this many DFA states are expanded by a single task
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private SubsetConstruction() {
+    }
+
+    static CompiledAutomaton determinize(CompiledAutomaton nfa) {
+        int numClasses = nfa.classCount;
+        Map<StateSet, Integer> ids = new HashMap<>();
+        List<StateSet> subsets = new ArrayList<>();
+        int[] transitions = new int[16 * Math.max(numClasses, 1)];
+
+        StateSet initial = new StateSet(nfa.initialSet.clone());
+        ids.put(initial, 0);
+        subsets.add(initial);
+
+        long[] scratch = new long[nfa.words];
+        for (int current = 0; current < subsets.size(); current++) {
+            long[] members = subsets.get(current).words;
+            if ((current + 1) * numClasses > transitions.length) {
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            }
+
+            for (int symbol = 0; symbol < numClasses; symbol++) {
+                int target = CompiledAutomaton.DEAD;
+                if (nfa.step(members, symbol, scratch)) {
+                    Integer known = ids.get(new StateSet(scratch));
+                    if (known == null) {
+                        StateSet next = new StateSet(scratch.clone());
+                        known = subsets.size();
+                        ids.put(next, known);
+                        subsets.add(next);
+                    }
+                    target = known;
+                }
+                transitions[current * numClasses + symbol] = target;
+            }
+        }
+
+        return fromSubsets(nfa, subsets.toArray(new StateSet[0]), transitions);
+    }
+
+    /**
+     * Subset construction that expands each BFS frontier across a ForkJoinPool.
+     * Successor sets are computed in parallel, then ids are handed out sequentially in
+     * (frontier order, symbol order), which is exactly the order {@link #determinize} uses,
+     * so both produce the same automaton.
+     *
+     * @param nfa The compiled NFA
+     * @param pool The pool that expands frontiers
+     * @return The determinized automaton
+     */
+    static CompiledAutomaton determinizeParallel(CompiledAutomaton nfa, ForkJoinPool pool) {
+        int numClasses = nfa.classCount;
+        Map<StateSet, Integer> ids = new ConcurrentHashMap<>();
+        List<StateSet> subsets = new ArrayList<>();
+        int[] transitions = new int[16 * Math.max(numClasses, 1)];
+
+        StateSet initial = new StateSet(nfa.initialSet.clone());
+        ids.put(initial, 0);
+        subsets.add(initial);
+
+        int frontierStart = 0;
+        while (frontierStart < subsets.size()) {
+            int frontierEnd = subsets.size();
+            StateSet[] frontier = subsets.subList(frontierStart, frontierEnd).toArray(new StateSet[0]);
+
+            // Parallel phase: successors of every (frontier state, symbol) pair, already known sets resolved to ids
+            Object[] successors = new Object[frontier.length * numClasses];
+            pool.invoke(new ExpandFrontier(nfa, ids, frontier, successors, 0, frontier.length));
+
+            // Sequential phase: new sets get ids in the same order the sequential BFS would give them
+            if (frontierEnd * numClasses > transitions.length) {
+                transitions = Arrays.copyOf(transitions, Math.max(transitions.length * 2, frontierEnd * numClasses));
+            }
+            for (int i = 0; i < successors.length; i++) {
+                Object successor = successors[i];
+                int target;
+                if (successor == null) {
+                    target = CompiledAutomaton.DEAD;
+                } else if (successor instanceof Integer) {
+                    target = (Integer) successor;
+                } else {
+                    StateSet next = (StateSet) successor;
+                    Integer known = ids.get(next);
+                    if (known == null) {
+                        known = subsets.size();
+                        ids.put(next, known);
+                        subsets.add(next);
+                    }
+                    target = known;
+                }
+                transitions[frontierStart * numClasses + i] = target;
+            }
+            frontierStart = frontierEnd;
+        }
+
+        return fromSubsets(nfa, subsets.toArray(new StateSet[0]), transitions);
+    }
+
+    @SuppressWarnings("serial") // Tasks only live within one pool invocation and are never serialized
+    private static final class ExpandFrontier extends RecursiveAction {
+        private final CompiledAutomaton nfa;
+        private final Map<StateSet, Integer> ids;
+        private final StateSet[] frontier;
+        private final Object[] successors; // null, a known id or a new StateSet per (state, symbol)
+        private final int from;
+        private final int to;
+
+        ExpandFrontier(CompiledAutomaton nfa, Map<StateSet, Integer> ids, StateSet[] frontier,
+                       Object[] successors, int from, int to) {
+            this.nfa = nfa;
+            this.ids = ids;
+            this.frontier = frontier;
+            this.successors = successors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandFrontier(nfa, ids, frontier, successors, from, middle),
+                        new ExpandFrontier(nfa, ids, frontier, successors, middle, to));
+                return;
+            }
+
+            int numClasses = nfa.classCount;
+            long[] scratch = new long[nfa.words];
+            for (int i = from; i < to; i++) {
+                for (int symbol = 0; symbol < numClasses; symbol++) {
+                    if (!nfa.step(frontier[i].words, symbol, scratch)) continue;
+                    Integer known = ids.get(new StateSet(scratch));
+                    successors[i * numClasses + symbol] = known != null ? known : new StateSet(scratch.clone());
+                }
+            }
+        }
+    }
+
+    static CompiledAutomaton fromSubsets(CompiledAutomaton nfa, StateSet[] subsets, int[] transitions) {
+        boolean[] accepting = new boolean[subsets.length];
+        for (int state = 0; state < subsets.length; state++) {
+            accepting[state] = CompiledAutomaton.intersects(subsets[state].words, nfa.acceptingSet);
+        }
+        int[] table = Arrays.copyOf(transitions, subsets.length * nfa.classCount);
+        return CompiledAutomaton.determinized(nfa, subsets, accepting, table);
+    }
+
+    /**
+     * Names a DFA state after its members, the same way convertToDFA always has:
+     * "q" followed by the member names in sorted order.
+     *
+     * @param subset The NFA states of the DFA state
+     * @param nfaStateNames Names of the NFA states
+     * @param nameOrder NFA state ids sorted by name
+     * @return The DFA state name
+     */
+    static String nameOf(StateSet subset, String[] nfaStateNames, int[] nameOrder) {
+        StringBuilder name = new StringBuilder("q");
+        for (int state : nameOrder) {
+            if (subset.contains(state)) name.append(nfaStateNames[state]);
+        }
+        return name.toString();
+    }
+
+    static int[] nameOrder(String[] names) {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) result[i] = order[i];
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns grammar symbol names to dense int ids and splits productions into symbol ids.
+ * A production is split greedily, always taking the longest known name at the current position;
+ * a char that starts no known name is rejected, so a misspelled or undeclared symbol cannot pass
+ * for a terminal. Lookups go through a hash map per candidate length, so splitting a production
+ * costs O(length * longest name).
+ */
+final class SymbolTable {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final BitSet terminals = new BitSet();
+    private int longestName = 1;
+
+    SymbolTable() {
+    }
+
+    SymbolTable(SymbolTable other) {
+        ids.putAll(other.ids);
+        names.addAll(other.names);
+        terminals.or(other.terminals);
+        longestName = other.longestName;
+    }
+
+    /**
+     * @param name The symbol name
+     * @param terminal The kind of a new symbol, ignored if the name is already known
+     * @return The id of the symbol
+     */
+    int add(String name, boolean terminal) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        ids.put(name, names.size());
+        names.add(name);
+        if (terminal) terminals.set(names.size() - 1);
+        longestName = Math.max(longestName, name.length());
+        return names.size() - 1;
+    }
+
+    /**
+     * Adds a new non-terminal named prefix + counter, skipping names that are already taken.
+     *
+     * @param counter Holds the next counter value, advanced past the name that was used
+     * @return The id of the new non-terminal
+     */
+    int fresh(String prefix, int[] counter) {
+        String name = prefix + counter[0]++;
+        while (ids.containsKey(name)) name = prefix + counter[0]++;
+        return add(name, false);
+    }
+
+    boolean contains(String name) {
+        return ids.containsKey(name);
+    }
+
+    int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    String name(int id) {
+        return names.get(id);
+    }
+
+    boolean isTerminal(int id) {
+        return terminals.get(id);
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    /**
+     * @param production The right-hand side to split, "ε" for the empty one
+     * @return The symbol ids of the production in order
+     * @throws IllegalArgumentException If some position of the production starts no known name
+     */
+    int[] tokenize(String production) {
+        if (production.equals("ε")) return new int[0];
+        int[] symbols = new int[production.length()];
+        int count = 0;
+        int i = 0;
+        while (i < production.length()) {
+            int length = Math.min(longestName, production.length() - i);
+            int id = -1;
+            while (length > 0 && (id = id(production.substring(i, i + length))) < 0) length--;
+            if (id < 0) {
+                throw new IllegalArgumentException("Unknown symbol " + production.charAt(i)
+                        + " in production " + production);
+            }
+            symbols[count++] = id;
+            i += length;
+        }
+        return Arrays.copyOf(symbols, count);
+    }
+
+    /**
+     * @return The names of the symbols joined without separators, or "ε" for no symbols
+     */
+    String join(int[] symbols) {
+        if (symbols.length == 0) return "ε";
+        StringBuilder production = new StringBuilder();
+        for (int symbol : symbols) production.append(names.get(symbol));
+        return production.toString();
+    }
+}
@@ -0,0 +1,319 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable automaton model with transitions stored in primitive arrays.
+ * States and symbols are dense ids. Deterministic automata without ε-transitions use a dense
+ * {@code state * symbolCount + symbol -> target} table, all others use CSR form: the targets of
+ * (state, symbol) are {@code targets[offsets[row] .. offsets[row + 1])} with
+ * {@code row = state * symbolCount + symbol}, and ε-transitions get a CSR block of their own.
+ * <p>
+ * Instances are created with a {@link Builder}, or from and back to the map-based
+ * {@link FiniteAutomaton}.
+ */
+public final class TransitionTable {
+    public static final int NONE = -1;
+
+    final String[] stateNames;
+    final String[] symbolNames;
+    final int initial;
+    final boolean[] accepting;
+
+    final int[] dense; // Deterministic form, null otherwise
+    final int[] offsets; // CSR form, null when dense
+    final int[] targets;
+    final int[] epsilonOffsets;
+    final int[] epsilonTargets;
+
+    private TransitionTable(String[] stateNames, String[] symbolNames, int initial, boolean[] accepting,
+                            int[] dense, int[] offsets, int[] targets, int[] epsilonOffsets, int[] epsilonTargets) {
+        this.stateNames = stateNames;
+        this.symbolNames = symbolNames;
+        this.initial = initial;
+        this.accepting = accepting;
+        this.dense = dense;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.epsilonOffsets = epsilonOffsets;
+        this.epsilonTargets = epsilonTargets;
+    }
+
+    static TransitionTable deterministic(String[] stateNames, String[] symbolNames, int initial,
+                                         boolean[] accepting, int[] dense) {
+        return new TransitionTable(stateNames, symbolNames, initial, accepting, dense, null, null, null, null);
+    }
+
+    /**
+     * Interns the map-based automaton. States keep the order of Q and symbols the order of Sigma;
+     * states and symbols that only appear in delta are appended after them.
+     *
+     * @param fa The automaton to convert
+     * @return The equivalent transition table
+     */
+    public static TransitionTable from(FiniteAutomaton fa) {
+        Builder builder = new Builder();
+        for (String state : fa.Q) builder.addState(state);
+        for (String symbol : fa.Sigma) {
+            if (!symbol.equals("ε")) builder.addSymbol(symbol);
+        }
+        builder.setInitial(fa.q0);
+        for (Map.Entry<HashMap<String, String>, List<String>> entry : fa.delta.entrySet()) {
+            Map.Entry<String, String> key = entry.getKey().entrySet().iterator().next();
+            for (String to : entry.getValue()) builder.addTransition(key.getKey(), key.getValue(), to);
+            if (entry.getValue().isEmpty()) {
+                builder.addState(key.getKey());
+                if (!key.getValue().equals("ε")) builder.addSymbol(key.getValue());
+            }
+        }
+        for (String finalState : fa.F) builder.addFinal(finalState);
+        return builder.build();
+    }
+
+    /**
+     * @return The map-based automaton with the same states, symbols and transitions
+     */
+    public FiniteAutomaton toFiniteAutomaton() {
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        int numSymbols = symbolNames.length;
+        for (int state = 0; state < stateNames.length; state++) {
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                List<String> to = new ArrayList<>();
+                if (dense != null) {
+                    int target = dense[state * numSymbols + symbol];
+                    if (target != NONE) to.add(stateNames[target]);
+                } else {
+                    int row = state * numSymbols + symbol;
+                    for (int i = offsets[row]; i < offsets[row + 1]; i++) to.add(stateNames[targets[i]]);
+                }
+                if (!to.isEmpty()) delta.put(key(stateNames[state], symbolNames[symbol]), to);
+            }
+            if (epsilonOffsets != null && epsilonOffsets[state] < epsilonOffsets[state + 1]) {
+                List<String> to = new ArrayList<>();
+                for (int i = epsilonOffsets[state]; i < epsilonOffsets[state + 1]; i++) to.add(stateNames[epsilonTargets[i]]);
+                delta.put(key(stateNames[state], "ε"), to);
+            }
+        }
+
+        List<String> Sigma = new ArrayList<>(Arrays.asList(symbolNames));
+        if (epsilonOffsets != null && epsilonTargets.length > 0) Sigma.add("ε");
+        List<String> F = new ArrayList<>();
+        for (int state = 0; state < stateNames.length; state++) {
+            if (accepting[state]) F.add(stateNames[state]);
+        }
+        return new FiniteAutomaton(new ArrayList<>(Arrays.asList(stateNames)), Sigma, delta, stateNames[initial], F);
+    }
+
+    private static HashMap<String, String> key(String state, String symbol) {
+        HashMap<String, String> key = new HashMap<>();
+        key.put(state, symbol);
+        return key;
+    }
+
+    /**
+     * Compiles the table for matching: a flat transition table for deterministic automata,
+     * precomputed successor bitsets otherwise.
+     *
+     * @return The compiled automaton
+     */
+    public CompiledAutomaton compile() {
+        return CompiledAutomaton.of(this, !isDeterministic());
+    }
+
+    public boolean isDeterministic() {
+        return dense != null;
+    }
+
+    public int stateCount() {
+        return stateNames.length;
+    }
+
+    public int symbolCount() {
+        return symbolNames.length;
+    }
+
+    public int transitionCount() {
+        if (dense != null) {
+            int count = 0;
+            for (int target : dense) {
+                if (target != NONE) count++;
+            }
+            return count;
+        }
+        return targets.length + epsilonTargets.length;
+    }
+
+    public String stateName(int state) {
+        return stateNames[state];
+    }
+
+    public String symbolName(int symbol) {
+        return symbolNames[symbol];
+    }
+
+    public int initialState() {
+        return initial;
+    }
+
+    public boolean isFinal(int state) {
+        return accepting[state];
+    }
+
+    /**
+     * @param state Source state id
+     * @param symbol Symbol id
+     * @return The target state ids, empty if there is no transition
+     */
+    public int[] targets(int state, int symbol) {
+        int row = state * symbolNames.length + symbol;
+        if (dense != null) return dense[row] == NONE ? new int[0] : new int[]{dense[row]};
+        return Arrays.copyOfRange(targets, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * @param state Source state id
+     * @return The targets of the ε-transitions leaving the state
+     */
+    public int[] epsilonTargets(int state) {
+        if (epsilonOffsets == null) return new int[0];
+        return Arrays.copyOfRange(epsilonTargets, epsilonOffsets[state], epsilonOffsets[state + 1]);
+    }
+
+    /**
+     * Collects states, symbols and transitions, then freezes them into a {@link TransitionTable}.
+     * The symbol "ε" denotes an ε-transition. Duplicate transitions are ignored.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> stateIds = new HashMap<>();
+        private final List<String> states = new ArrayList<>();
+        private final Map<String, Integer> symbolIds = new HashMap<>();
+        private final List<String> symbols = new ArrayList<>();
+        private final List<String> finals = new ArrayList<>();
+        private String initial;
+
+        // Transitions as parallel growable arrays, symbol NONE marks an ε-transition
+        private int[] from = new int[16];
+        private int[] via = new int[16];
+        private int[] to = new int[16];
+        private int size;
+
+        public int addState(String name) {
+            Integer id = stateIds.get(name);
+            if (id != null) return id;
+            stateIds.put(name, states.size());
+            states.add(name);
+            return states.size() - 1;
+        }
+
+        public int addSymbol(String name) {
+            if (name.equals("ε")) throw new IllegalArgumentException("ε is not an alphabet symbol");
+            Integer id = symbolIds.get(name);
+            if (id != null) return id;
+            symbolIds.put(name, symbols.size());
+            symbols.add(name);
+            return symbols.size() - 1;
+        }
+
+        public Builder setInitial(String state) {
+            addState(state);
+            initial = state;
+            return this;
+        }
+
+        public Builder addFinal(String state) {
+            addState(state);
+            finals.add(state);
+            return this;
+        }
+
+        public Builder addTransition(String fromState, String symbol, String toState) {
+            int source = addState(fromState);
+            int label = symbol.equals("ε") ? NONE : addSymbol(symbol);
+            int target = addState(toState);
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                via = Arrays.copyOf(via, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = source;
+            via[size] = label;
+            to[size++] = target;
+            return this;
+        }
+
+        public TransitionTable build() {
+            if (initial == null) throw new IllegalStateException("No initial state set");
+            int numStates = states.size();
+            int numSymbols = symbols.size();
+            String[] stateNames = states.toArray(new String[0]);
+            String[] symbolNames = symbols.toArray(new String[0]);
+            boolean[] accepting = new boolean[numStates];
+            for (String state : finals) accepting[stateIds.get(state)] = true;
+
+            // Counting sort of the transitions by row, ε-transitions in their own block
+            int[] offsets = new int[numStates * numSymbols + 1];
+            int[] epsilonOffsets = new int[numStates + 1];
+            for (int i = 0; i < size; i++) {
+                if (via[i] == NONE) epsilonOffsets[from[i] + 1]++;
+                else offsets[from[i] * numSymbols + via[i] + 1]++;
+            }
+            for (int i = 0; i < numStates * numSymbols; i++) offsets[i + 1] += offsets[i];
+            for (int i = 0; i < numStates; i++) epsilonOffsets[i + 1] += epsilonOffsets[i];
+            int[] targets = new int[offsets[numStates * numSymbols]];
+            int[] epsilonTargets = new int[epsilonOffsets[numStates]];
+            int[] fill = offsets.clone();
+            int[] epsilonFill = epsilonOffsets.clone();
+            for (int i = 0; i < size; i++) {
+                if (via[i] == NONE) epsilonTargets[epsilonFill[from[i]]++] = to[i];
+                else targets[fill[from[i] * numSymbols + via[i]]++] = to[i];
+            }
+
+            // Sort every row and drop duplicate targets
+            int[] uniqueOffsets = new int[offsets.length];
+            int[] uniqueTargets = dedupe(offsets, targets, uniqueOffsets);
+            int[] uniqueEpsilonOffsets = new int[epsilonOffsets.length];
+            int[] uniqueEpsilonTargets = dedupe(epsilonOffsets, epsilonTargets, uniqueEpsilonOffsets);
+
+            boolean deterministic = uniqueEpsilonTargets.length == 0;
+            for (int row = 0; row < numStates * numSymbols && deterministic; row++) {
+                if (uniqueOffsets[row + 1] - uniqueOffsets[row] > 1) deterministic = false;
+            }
+
+            int start = stateIds.get(initial);
+            if (deterministic) {
+                int[] dense = new int[numStates * numSymbols];
+                Arrays.fill(dense, NONE);
+                for (int row = 0; row < dense.length; row++) {
+                    if (uniqueOffsets[row] < uniqueOffsets[row + 1]) dense[row] = uniqueTargets[uniqueOffsets[row]];
+                }
+                return new TransitionTable(stateNames, symbolNames, start, accepting, dense, null, null, null, null);
+            }
+            return new TransitionTable(stateNames, symbolNames, start, accepting, null,
+                    uniqueOffsets, uniqueTargets, uniqueEpsilonOffsets, uniqueEpsilonTargets);
+        }
+
+        private static int[] dedupe(int[] offsets, int[] targets, int[] uniqueOffsets) {
+            int[] unique = new int[targets.length];
+            int count = 0;
+            for (int row = 0; row + 1 < offsets.length; row++) {
+                uniqueOffsets[row] = count;
+                Arrays.sort(targets, offsets[row], offsets[row + 1]);
+                for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                    if (i == offsets[row] || targets[i] != targets[i - 1]) unique[count++] = targets[i];
+                }
+            }
+            uniqueOffsets[offsets.length - 1] = count;
+            return count == unique.length ? unique : Arrays.copyOf(unique, count);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TransitionTable{states=" + stateNames.length + ", symbols=" + symbolNames.length
+                + ", transitions=" + transitionCount() + ", deterministic=" + isDeterministic() + "}";
+    }
+}
@@ -0,0 +1,204 @@
+package uni.project.grammarAndFA;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Samples sentences of an exact length uniformly among the derivation trees of that length, on the
+ * Chomsky Normal Form of a {@link Grammar}. For unambiguous grammars this is uniform over sentences.
+ * <p>
+ * The table holds, for every non-terminal A and length n up to the bound, the number of derivation
+ * trees of A with yield length n. Counts grow exponentially, so they are kept as doubles with one
+ * binary exponent per length: the count is {@code counts[A][n] * 2^scale[n]}. Sampling walks the
+ * tree top-down and picks a rule and a split point in proportion to their counts, trying split
+ * points from both ends alternately, which needs O(n log n) expected steps per sentence.
+ * <p>
+ * Lengths are in chars, a terminal counts with the length of its name.
+ */
+public final class UniformSampler {
+    private final int maxLength;
+    private final int start;
+    private final boolean acceptsEmpty;
+
+    // Binary rules A → BC grouped by A: [binaryOffsets[A], binaryOffsets[A + 1])
+    private final int[] binaryOffsets;
+    private final int[] binaryLeft;
+    private final int[] binaryRight;
+    // Terminal rules A → t grouped by A
+    private final int[] terminalOffsets;
+    private final String[] terminalNames;
+
+    private final double[][] counts; // [non-terminal][length], scaled by 2^scale[length]
+    private final int[] scale;
+
+    /**
+     * @param grammar The grammar to sample from, converted to CNF here
+     * @param maxLength The longest length that can be sampled
+     */
+    public UniformSampler(Grammar grammar, int maxLength) {
+        this.maxLength = maxLength;
+        Grammar cnf = grammar.toChomskyNormalForm();
+        SymbolTable symbols = cnf.symbols;
+
+        // Step 1: dense non-terminal ids and the rules grouped by head
+        int[] ids = new int[symbols.size()];
+        int nonTerminals = 0;
+        for (int symbol = 0; symbol < symbols.size(); symbol++) ids[symbol] = symbols.isTerminal(symbol) ? -1 : nonTerminals++;
+        this.start = ids[cnf.start];
+        this.binaryOffsets = new int[nonTerminals + 1];
+        this.terminalOffsets = new int[nonTerminals + 1];
+        int binaryCount = 0;
+        int terminalCount = 0;
+        boolean empty = false;
+        for (int[] body : cnf.ruleBodies) {
+            if (body.length == 2) binaryCount++;
+            else if (body.length == 1) terminalCount++;
+        }
+        this.binaryLeft = new int[binaryCount];
+        this.binaryRight = new int[binaryCount];
+        this.terminalNames = new String[terminalCount];
+        binaryCount = 0;
+        terminalCount = 0;
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            if (ids[symbol] < 0) continue;
+            binaryOffsets[ids[symbol]] = binaryCount;
+            terminalOffsets[ids[symbol]] = terminalCount;
+            for (int r = cnf.ruleOffsets[symbol]; r < cnf.ruleOffsets[symbol + 1]; r++) {
+                int[] body = cnf.ruleBodies[r];
+                if (body.length == 0) {
+                    empty = true;
+                } else if (body.length == 1) {
+                    terminalNames[terminalCount++] = symbols.name(body[0]);
+                } else {
+                    binaryLeft[binaryCount] = ids[body[0]];
+                    binaryRight[binaryCount++] = ids[body[1]];
+                }
+            }
+        }
+        binaryOffsets[nonTerminals] = binaryCount;
+        terminalOffsets[nonTerminals] = terminalCount;
+        this.acceptsEmpty = empty;
+
+        // Step 2: counts by increasing length; every term is brought to the largest exponent of its length
+        this.counts = new double[nonTerminals][maxLength + 1];
+        this.scale = new int[maxLength + 1];
+        double[] sums = new double[nonTerminals];
+        for (int n = 1; n <= maxLength; n++) {
+            int base = 0;
+            for (int k = 1; k < n; k++) base = Math.max(base, scale[k] + scale[n - k]);
+            Arrays.fill(sums, 0.0);
+            double max = 0.0;
+            for (int a = 0; a < nonTerminals; a++) {
+                double sum = 0.0;
+                for (int t = terminalOffsets[a]; t < terminalOffsets[a + 1]; t++) {
+                    if (terminalNames[t].length() == n) sum += Math.scalb(1.0, -base);
+                }
+                for (int k = 1; k < n; k++) {
+                    double factor = Math.scalb(1.0, scale[k] + scale[n - k] - base);
+                    for (int r = binaryOffsets[a]; r < binaryOffsets[a + 1]; r++) {
+                        sum += counts[binaryLeft[r]][k] * counts[binaryRight[r]][n - k] * factor;
+                    }
+                }
+                sums[a] = sum;
+                max = Math.max(max, sum);
+            }
+            // Renormalize so the largest count of this length is in [1, 2)
+            int shift = max == 0.0 ? 0 : Math.getExponent(max);
+            scale[n] = base + shift;
+            for (int a = 0; a < nonTerminals; a++) counts[a][n] = Math.scalb(sums[a], -shift);
+        }
+    }
+
+    /**
+     * @param length The sentence length
+     * @return The base 2 logarithm of the number of derivation trees of that length,
+     *         negative infinity if there are none
+     */
+    public double log2Count(int length) {
+        checkLength(length);
+        if (length == 0) return acceptsEmpty ? 0.0 : Double.NEGATIVE_INFINITY;
+        double count = counts[start][length];
+        return count == 0.0 ? Double.NEGATIVE_INFINITY : Math.log(count) / Math.log(2) + scale[length];
+    }
+
+    /**
+     * @param length The sentence length, at most the bound this sampler was built for
+     * @param random The source of randomness
+     * @return A sentence of exactly that length, or null if the grammar has none
+     */
+    public String sample(int length, SplittableRandom random) {
+        checkLength(length);
+        if (length == 0) return acceptsEmpty ? "" : null;
+        if (counts[start][length] == 0.0) return null;
+
+        // Explicit stack of pending (non-terminal, length) pairs, leftmost on top
+        StringBuilder sentence = new StringBuilder(length);
+        int[] stack = new int[2 * length + 2];
+        int size = 0;
+        stack[size++] = start;
+        stack[size++] = length;
+        while (size > 0) {
+            int n = stack[--size];
+            int a = stack[--size];
+            double target = random.nextDouble() * counts[a][n];
+
+            // Terminal rules first, then the split points from both ends alternately
+            String terminal = null;
+            String lastTerminal = null; // Fallback against rounding: the last option with a non-zero count
+            for (int t = terminalOffsets[a]; t < terminalOffsets[a + 1] && terminal == null; t++) {
+                if (terminalNames[t].length() != n) continue;
+                lastTerminal = terminalNames[t];
+                target -= Math.scalb(1.0, -scale[n]);
+                if (target < 0) terminal = terminalNames[t];
+            }
+            if (terminal != null) {
+                sentence.append(terminal);
+                continue;
+            }
+
+            int rule = -1;
+            int split = -1;
+            int lastRule = -1;
+            int lastSplit = -1;
+            for (int i = 1; i < n && rule < 0; i++) {
+                int k = (i & 1) == 1 ? (i + 1) / 2 : n - i / 2;
+                double factor = Math.scalb(1.0, scale[k] + scale[n - k] - scale[n]);
+                for (int r = binaryOffsets[a]; r < binaryOffsets[a + 1]; r++) {
+                    double term = counts[binaryLeft[r]][k] * counts[binaryRight[r]][n - k] * factor;
+                    if (term == 0.0) continue;
+                    lastRule = r;
+                    lastSplit = k;
+                    target -= term;
+                    if (target < 0) {
+                        rule = r;
+                        split = k;
+                        break;
+                    }
+                }
+            }
+            if (rule < 0 && lastRule < 0) {
+                sentence.append(lastTerminal);
+                continue;
+            }
+            if (rule < 0) {
+                rule = lastRule;
+                split = lastSplit;
+            }
+            stack[size++] = binaryRight[rule];
+            stack[size++] = n - split;
+            stack[size++] = binaryLeft[rule];
+            stack[size++] = split;
+        }
+        return sentence.toString();
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    private void checkLength(int length) {
+        if (length < 0 || length > maxLength) {
+            throw new IllegalArgumentException("Length " + length + " is outside [0, " + maxLength + "]");
+        }
+    }
+}
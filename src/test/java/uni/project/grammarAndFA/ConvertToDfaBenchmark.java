@@ -0,0 +1,161 @@
+package uni.project.grammarAndFA;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Timing harness for {@link FiniteAutomaton#convertToDFA()}, kept out of the unit tests.
+ * It compares the compiled subset construction with the map-based one it replaced, kept below
+ * as a reference, on NFAs that recognize strings ending with one of n random keywords.
+ * The outputs are checked to be identical: same states, final states and transitions.
+ * <p>
+ * Run after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes uni.project.grammarAndFA.ConvertToDfaBenchmark [keywords...]}
+ */
+public final class ConvertToDfaBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private ConvertToDfaBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int[] keywordCounts = args.length == 0 ? new int[]{100, 300}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        for (int keywords : keywordCounts) {
+            FiniteAutomaton nfa = keywordNfa(keywords, keywords);
+            FiniteAutomaton dfa = null;
+            long compiled = Long.MAX_VALUE;
+            long reference = Long.MAX_VALUE;
+            ReferenceDfa expected = null;
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                long t0 = System.nanoTime();
+                // A fresh automaton each round, so no compiled form is reused
+                dfa = new FiniteAutomaton(nfa.Q, nfa.Sigma, nfa.delta, nfa.q0, nfa.F).convertToDFA();
+                long t1 = System.nanoTime();
+                expected = ReferenceDfa.of(nfa);
+                long t2 = System.nanoTime();
+                if (round >= WARMUP_ROUNDS) {
+                    compiled = Math.min(compiled, t1 - t0);
+                    reference = Math.min(reference, t2 - t1);
+                }
+            }
+            boolean same = new HashSet<>(expected.states).equals(new HashSet<>(dfa.Q))
+                    && new HashSet<>(expected.finals).equals(new HashSet<>(dfa.F))
+                    && expected.delta.equals(dfa.delta);
+            System.out.printf("keywords=%d nfa states=%d dfa states=%d map-based %.1f ms compiled %.1f ms (best of %d) same=%b%n",
+                    keywords, nfa.Q.size(), dfa.Q.size(), reference / 1e6, compiled / 1e6, ROUNDS, same);
+        }
+    }
+
+    // s0 loops on every symbol and starts a chain of six states spelling each keyword
+    static FiniteAutomaton keywordNfa(int keywords, long seed) {
+        Random random = new Random(seed);
+        List<String> symbols = Arrays.asList("a", "b", "c", "d");
+        List<String> states = new ArrayList<>();
+        List<String> finals = new ArrayList<>();
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        states.add("s0");
+        for (String symbol : symbols) {
+            HashMap<String, String> key = new HashMap<>();
+            key.put("s0", symbol);
+            delta.put(key, new ArrayList<>(List.of("s0")));
+        }
+        for (int word = 0; word < keywords; word++) {
+            String previous = "s0";
+            for (int i = 0; i < 6; i++) {
+                String state = "w" + word + "_" + i;
+                states.add(state);
+                HashMap<String, String> key = new HashMap<>();
+                key.put(previous, symbols.get(random.nextInt(symbols.size())));
+                delta.computeIfAbsent(key, k -> new ArrayList<>()).add(state);
+                previous = state;
+            }
+            finals.add(previous);
+        }
+        return new FiniteAutomaton(states, symbols, delta, "s0", finals);
+    }
+
+    /**
+     * The map-based subset construction that convertToDFA used before, on sets of state names.
+     */
+    private static final class ReferenceDfa {
+        final List<String> states = new ArrayList<>();
+        final List<String> finals = new ArrayList<>();
+        final HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+
+        static ReferenceDfa of(FiniteAutomaton nfa) {
+            ReferenceDfa dfa = new ReferenceDfa();
+            Map<String, Set<String>> closures = new HashMap<>();
+            List<String> sigma = new ArrayList<>(nfa.Sigma);
+            sigma.remove("ε");
+            Map<Set<String>, String> names = new HashMap<>();
+            Set<String> initial = closure(nfa, Collections.singleton(nfa.q0), closures);
+            names.put(initial, name(initial));
+            dfa.states.add(name(initial));
+            Queue<Set<String>> unprocessed = new ArrayDeque<>();
+            unprocessed.add(initial);
+            while (!unprocessed.isEmpty()) {
+                Set<String> current = unprocessed.poll();
+                for (String symbol : sigma) {
+                    Set<String> moved = new HashSet<>();
+                    for (String state : current) {
+                        HashMap<String, String> key = new HashMap<>();
+                        key.put(state, symbol);
+                        moved.addAll(nfa.delta.getOrDefault(key, Collections.emptyList()));
+                    }
+                    Set<String> next = closure(nfa, moved, closures);
+                    if (next.isEmpty()) continue;
+                    String target = names.computeIfAbsent(next, k -> {
+                        dfa.states.add(name(k));
+                        unprocessed.add(k);
+                        return name(k);
+                    });
+                    HashMap<String, String> key = new HashMap<>();
+                    key.put(names.get(current), symbol);
+                    dfa.delta.put(key, Collections.singletonList(target));
+                }
+            }
+            for (Map.Entry<Set<String>, String> entry : names.entrySet()) {
+                if (!Collections.disjoint(entry.getKey(), nfa.F)) dfa.finals.add(entry.getValue());
+            }
+            return dfa;
+        }
+
+        private static Set<String> closure(FiniteAutomaton nfa, Set<String> states, Map<String, Set<String>> closures) {
+            Set<String> result = new HashSet<>();
+            for (String state : states) {
+                result.addAll(closures.computeIfAbsent(state, s -> {
+                    Set<String> closure = new HashSet<>();
+                    closure.add(s);
+                    ArrayDeque<String> stack = new ArrayDeque<>();
+                    stack.push(s);
+                    while (!stack.isEmpty()) {
+                        HashMap<String, String> key = new HashMap<>();
+                        key.put(stack.pop(), "ε");
+                        for (String next : nfa.delta.getOrDefault(key, Collections.emptyList())) {
+                            if (closure.add(next)) stack.push(next);
+                        }
+                    }
+                    return closure;
+                }));
+            }
+            return result;
+        }
+
+        private static String name(Set<String> states) {
+            List<String> sorted = new ArrayList<>(states);
+            Collections.sort(sorted);
+            return "q" + String.join("", sorted);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package uni.project.grammarAndFA;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CorpusScannerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testScanMatchesLineByLineMatching() throws IOException {
+        CompiledAutomaton nfa = FiniteAutomatonTest.nthSymbolFromEndIsA(2).compile();
+
+        StringBuilder content = new StringBuilder();
+        List<Long> expectedAccepted = new ArrayList<>();
+        List<Long> expectedRejected = new ArrayList<>();
+        List<String> lines = FiniteAutomatonTest.allStrings("ab", 6);
+        lines.add("abxab");
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            (nfa.accepts(line) ? expectedAccepted : expectedRejected).add((long) content.length());
+            content.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        // A last line without a newline
+        expectedAccepted.add((long) content.length());
+        content.append("bbabb");
+
+        Path file = tempDir.resolve("corpus.txt");
+        Files.write(file, content.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+        for (CorpusScanner scanner : List.of(new CorpusScanner(nfa), new CorpusScanner(nfa, 37))) {
+            CorpusScanner.ScanResult result = scanner.scan(file);
+            assertArrayEquals(toArray(expectedAccepted), result.acceptedOffsets());
+            assertArrayEquals(toArray(expectedRejected), result.rejectedOffsets());
+            assertEquals(lines.size() + 1, result.acceptedCount() + result.rejectedCount());
+        }
+    }
+
+    @Test
+    void testScanEmptyFile() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("empty.txt"));
+        CorpusScanner.ScanResult result = new CorpusScanner(FiniteAutomatonTest.nthSymbolFromEndIsA(1).compile()).scan(file);
+        assertEquals(0, result.acceptedCount());
+        assertEquals(0, result.rejectedCount());
+    }
+
+    private static long[] toArray(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+}
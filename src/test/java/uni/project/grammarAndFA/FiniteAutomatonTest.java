@@ -4,9 +4,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class FiniteAutomatonTest {
     private FiniteAutomaton deterministicFA;
@@ -72,6 +89,575 @@ public class FiniteAutomatonTest {
         assertTrue(dfa.isDeterministic());
     }
 
+    @Test
+    void testConvertToDFAStateNames() {
+        FiniteAutomaton dfa = nonDeterministicFA.convertToDFA();
+        // The start state is the ε-closure {q0, q1}, named after its sorted members
+        assertEquals("qq0q1", dfa.q0);
+        assertEquals(Arrays.asList("qq0q1"), dfa.Q);
+        assertEquals(Arrays.asList("0", "1"), dfa.Sigma);
+        assertTrue(dfa.F.contains("qq0q1"));
+        assertLanguagesAgree(nonDeterministicFA, dfa, "01", 6);
+    }
+
+    @Test
+    void testParallelConvertToDFAMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (FiniteAutomaton nfa : Arrays.asList(nonDeterministicFA, nthSymbolFromEndIsA(8))) {
+                FiniteAutomaton sequential = nfa.convertToDFA();
+                FiniteAutomaton parallel = nfa.convertToDFA(pool);
+                assertEquals(sequential.Q, parallel.Q);
+                assertEquals(sequential.Sigma, parallel.Sigma);
+                assertEquals(sequential.delta, parallel.delta);
+                assertEquals(sequential.q0, parallel.q0);
+                assertEquals(sequential.F, parallel.F);
+            }
+            assertEquals(512, nthSymbolFromEndIsA(8).convertToDFA(pool).Q.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testCompiledMatchesMapBasedMatching() {
+        CompiledAutomaton compiled = deterministicFA.compile();
+        assertEquals(3, compiled.stateCount());
+        assertEquals(2, compiled.symbolCount());
+
+        List<String> inputs = new ArrayList<>(allStrings("01", 6));
+        inputs.addAll(allStrings("ab", 6));
+        inputs.addAll(Arrays.asList("102", "abc", "0ε1"));
+        for (FiniteAutomaton automaton : Arrays.asList(deterministicFA, nonDeterministicFA, nthSymbolFromEndIsA(2))) {
+            CompiledAutomaton form = automaton.compile();
+            for (String input : inputs) {
+                boolean expected = mapBasedAccepts(automaton, input);
+                assertEquals(expected, form.accepts(input), input);
+                assertEquals(expected, automaton.stringBelongToLanguage(input), input);
+            }
+        }
+        assertTrue(compiled.accepts("00010"));
+        assertFalse(compiled.accepts("0011"));
+    }
+
+    // Reference simulation straight on the delta map: sets of state names, ε-closed after every step
+    private static boolean mapBasedAccepts(FiniteAutomaton automaton, String input) {
+        Set<String> current = epsilonClosure(automaton, Collections.singleton(automaton.q0));
+        for (char c : input.toCharArray()) {
+            Set<String> next = new HashSet<>();
+            for (String state : current) {
+                HashMap<String, String> key = new HashMap<>();
+                key.put(state, String.valueOf(c));
+                next.addAll(automaton.delta.getOrDefault(key, Collections.emptyList()));
+            }
+            current = epsilonClosure(automaton, next);
+        }
+        return !Collections.disjoint(current, automaton.F);
+    }
+
+    private static Set<String> epsilonClosure(FiniteAutomaton automaton, Set<String> states) {
+        Set<String> closure = new HashSet<>(states);
+        ArrayDeque<String> stack = new ArrayDeque<>(states);
+        while (!stack.isEmpty()) {
+            HashMap<String, String> key = new HashMap<>();
+            key.put(stack.pop(), "ε");
+            for (String next : automaton.delta.getOrDefault(key, Collections.emptyList())) {
+                if (closure.add(next)) stack.push(next);
+            }
+        }
+        return closure;
+    }
+
+    @Test
+    void testAutomatonCopiesItsDefinition() {
+        // Changing the lists after construction must not change the automaton or its compiled form
+        List<String> states = new ArrayList<>(Arrays.asList("p", "r"));
+        List<String> finals = new ArrayList<>(Arrays.asList("r"));
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        HashMap<String, String> key = new HashMap<>();
+        key.put("p", "a");
+        delta.put(key, new ArrayList<>(Arrays.asList("r")));
+        FiniteAutomaton automaton = new FiniteAutomaton(states, Arrays.asList("a", "b"), delta, "p", finals);
+        assertTrue(automaton.stringBelongToLanguage("a"));
+
+        finals.set(0, "p");
+        delta.get(key).set(0, "p");
+        key.put("p", "b");
+        states.add("s");
+        assertTrue(automaton.stringBelongToLanguage("a"));
+        assertFalse(automaton.stringBelongToLanguage(""));
+        assertEquals(Arrays.asList("p", "r"), automaton.Q);
+        assertEquals(Arrays.asList("r"), automaton.F);
+        assertTrue(automaton.convertToDFA().stringBelongToLanguage("a"));
+        assertThrows(UnsupportedOperationException.class, () -> automaton.F.add("p"));
+    }
+
+    @Test
+    void testCompiledNonDeterministicMatchesDFA() {
+        CompiledAutomaton nfa = nonDeterministicFA.compile();
+        CompiledAutomaton dfa = nonDeterministicFA.convertToDFA().compile();
+        assertFalse(nfa.isDeterministic());
+        assertTrue(dfa.isDeterministic());
+
+        for (String input : allStrings("01", 5)) {
+            assertEquals(dfa.accepts(input), nfa.accepts(input), input);
+        }
+        assertTrue(nfa.accepts(""));
+        assertTrue(nfa.accepts("111"));
+        assertFalse(nfa.accepts("10"));
+    }
+
+    @Test
+    void testCompiledNonDeterministicWithManyStates() {
+        // p0 loops on a, then a chain of 99 more a's reaches p99: accepts a^n for n >= 99
+        List<String> states = new ArrayList<>();
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        for (int i = 0; i < 100; i++) states.add("p" + i);
+        for (int i = 0; i < 99; i++) {
+            HashMap<String, String> key = new HashMap<>();
+            key.put("p" + i, "a");
+            delta.put(key, i == 0 ? Arrays.asList("p0", "p1") : Arrays.asList("p" + (i + 1)));
+        }
+        CompiledAutomaton compiled = new FiniteAutomaton(states, Arrays.asList("a"), delta, "p0", Arrays.asList("p99")).compile();
+
+        assertFalse(compiled.accepts("a".repeat(98)));
+        assertTrue(compiled.accepts("a".repeat(99)));
+        assertTrue(compiled.accepts("a".repeat(150)));
+        assertFalse(compiled.accepts("a".repeat(120) + "b"));
+    }
+
+    @Test
+    void testStringBelongToLanguageFollowsEpsilonTransitions() {
+        assertTrue(nonDeterministicFA.stringBelongToLanguage(""));
+        assertTrue(nonDeterministicFA.stringBelongToLanguage("11"));
+        assertFalse(nonDeterministicFA.stringBelongToLanguage("0"));
+
+        // S → aS | bA, A → aA | ε: the automaton reaches its final state through an ε edge
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("aS", "bA"));
+        rules.put("A", Arrays.asList("aA", "ε"));
+        FiniteAutomaton fa = new Grammar(Arrays.asList("S", "A"), Arrays.asList("a", "b"), "S", rules).toFiniteAutomaton();
+
+        FiniteAutomaton dfa = fa.convertToDFA();
+        for (String input : allStrings("ab", 6)) {
+            assertEquals(dfa.stringBelongToLanguage(input), fa.stringBelongToLanguage(input), input);
+        }
+        assertTrue(fa.stringBelongToLanguage("b"));
+        assertTrue(fa.stringBelongToLanguage("aabaa"));
+        assertFalse(fa.stringBelongToLanguage("abb"));
+    }
+
+    @Test
+    void testMinimize() {
+        // Strings over {a, b} ending with a, with a duplicated final state and an unreachable state
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        String[][] transitions = {
+                {"s", "a", "f1"}, {"s", "b", "s"},
+                {"f1", "a", "f2"}, {"f1", "b", "n"},
+                {"f2", "a", "f1"}, {"f2", "b", "s"},
+                {"n", "a", "f2"}, {"n", "b", "n"},
+                {"u", "a", "s"}
+        };
+        for (String[] t : transitions) {
+            HashMap<String, String> key = new HashMap<>();
+            key.put(t[0], t[1]);
+            delta.put(key, Arrays.asList(t[2]));
+        }
+        FiniteAutomaton fa = new FiniteAutomaton(Arrays.asList("s", "f1", "f2", "n", "u"), Arrays.asList("a", "b"),
+                delta, "s", Arrays.asList("f1", "f2"));
+
+        FiniteAutomaton minimal = fa.minimize();
+        assertTrue(minimal.isDeterministic());
+        assertEquals(2, minimal.Q.size());
+        assertLanguagesAgree(fa, minimal, "ab", 7);
+
+        FiniteAutomaton minimalFromNfa = nonDeterministicFA.minimize();
+        assertTrue(minimalFromNfa.Q.size() <= nonDeterministicFA.convertToDFA().Q.size());
+        assertLanguagesAgree(nonDeterministicFA, minimalFromNfa, "01", 7);
+    }
+
+    @Test
+    void testMinimizeEmptyLanguage() {
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        HashMap<String, String> key = new HashMap<>();
+        key.put("q0", "a");
+        delta.put(key, Arrays.asList("q1"));
+        FiniteAutomaton fa = new FiniteAutomaton(Arrays.asList("q0", "q1", "q2"), Arrays.asList("a"),
+                delta, "q0", Arrays.asList("q2"));
+
+        FiniteAutomaton minimal = fa.minimize();
+        assertEquals(1, minimal.Q.size());
+        assertTrue(minimal.F.isEmpty());
+        assertFalse(minimal.stringBelongToLanguage(""));
+        assertFalse(minimal.stringBelongToLanguage("a"));
+    }
+
+    @Test
+    void testLazyDFA() {
+        FiniteAutomaton nfa = nthSymbolFromEndIsA(6);
+        CompiledAutomaton compiled = nfa.compile();
+
+        LazyDfa unbounded = nfa.toLazyDFA(1000);
+        LazyDfa tiny = nfa.toLazyDFA(4);
+        for (String input : allStrings("ab", 9)) {
+            boolean expected = compiled.accepts(input);
+            assertEquals(expected, unbounded.accepts(input), input);
+            assertEquals(expected, tiny.accepts(input), input);
+        }
+
+        // The full DFA has 2^7 states, only those reached by the inputs were materialized
+        assertTrue(unbounded.cachedStateCount() <= 128);
+        assertEquals(0, unbounded.flushCount());
+        assertTrue(tiny.cachedStateCount() <= 4);
+        assertTrue(tiny.flushCount() > 0);
+        assertTrue(tiny.accepts("b".repeat(50) + "abbbbbb"));
+        assertFalse(tiny.accepts("a".repeat(50) + "bbbbbbb"));
+    }
+
+    @Test
+    void testBulkMembership() {
+        List<String> inputs = allStrings("abc", 7);
+        String[] array = inputs.toArray(new String[0]);
+        FiniteAutomaton nfa = nthSymbolFromEndIsA(3);
+
+        for (CompiledAutomaton compiled : Arrays.asList(nfa.compile(), nfa.convertToDFA().compile())) {
+            BitSet expected = new BitSet();
+            for (int i = 0; i < inputs.size(); i++) {
+                if (compiled.accepts(inputs.get(i))) expected.set(i);
+            }
+
+            assertEquals(expected, compiled.acceptsAll(inputs));
+            assertEquals(expected, compiled.acceptsAll(inputs.stream()));
+            assertEquals(expected, compiled.acceptsAllParallel(inputs));
+            boolean[] flags = compiled.acceptsAll(array);
+            boolean[] parallelFlags = compiled.acceptsAllParallel(array);
+            for (int i = 0; i < array.length; i++) {
+                assertEquals(expected.get(i), flags[i], array[i]);
+                assertEquals(expected.get(i), parallelFlags[i], array[i]);
+            }
+        }
+        assertEquals(nfa.compile().acceptsAll(inputs), nfa.stringsBelongToLanguage(inputs));
+    }
+
+    @Test
+    void testStreamingMatcher() throws IOException {
+        FiniteAutomaton nfa = nthSymbolFromEndIsA(3);
+        for (CompiledAutomaton compiled : Arrays.asList(nfa.compile(), nfa.convertToDFA().compile())) {
+            AutomatonMatcher matcher = compiled.matcher();
+            for (String input : allStrings("ab", 6)) {
+                matcher.reset();
+                for (int split = 0; split <= input.length(); split += 2) {
+                    matcher.feed(input.substring(split, Math.min(input.length(), split + 2)));
+                    String prefix = input.substring(0, Math.min(input.length(), split + 2));
+                    assertEquals(compiled.accepts(prefix), matcher.isAccepting(), prefix);
+                }
+                assertEquals(input.length(), matcher.position());
+            }
+
+            String large = "ab".repeat(50_000) + "abba";
+            assertTrue(compiled.accepts(new StringReader(large)));
+            assertTrue(compiled.accepts(Channels.newChannel(new ByteArrayInputStream(large.getBytes(StandardCharsets.ISO_8859_1)))));
+            assertFalse(compiled.accepts(new StringReader(large + "b")));
+
+            // A non-blocking channel would make the read loop spin, so it is refused
+            Pipe pipe = Pipe.open();
+            try {
+                pipe.source().configureBlocking(false);
+                assertThrows(IllegalBlockingModeException.class, () -> compiled.accepts(pipe.source()));
+                pipe.source().configureBlocking(true);
+                pipe.sink().write(ByteBuffer.wrap("abba".getBytes(StandardCharsets.ISO_8859_1)));
+                pipe.sink().close();
+                assertTrue(compiled.accepts(pipe.source()));
+            } finally {
+                pipe.source().close();
+                pipe.sink().close();
+            }
+
+            matcher.reset().feed("abc").feed("aaaa");
+            assertTrue(matcher.isDead());
+            assertFalse(matcher.isAccepting());
+            assertEquals(7, matcher.position());
+        }
+        assertTrue(nfa.matcher().feed('a').feed("bbb").isAccepting());
+
+        // A trap state still has transitions, but nothing can be accepted once it is entered
+        TransitionTable trap = new TransitionTable.Builder()
+                .setInitial("s")
+                .addTransition("s", "a", "t")
+                .addTransition("s", "b", "trap")
+                .addTransition("t", "a", "t")
+                .addTransition("trap", "a", "trap")
+                .addTransition("trap", "b", "trap")
+                .addFinal("t")
+                .build();
+        TransitionTable trapNfa = new TransitionTable.Builder()
+                .setInitial("s")
+                .addTransition("s", "a", "t")
+                .addTransition("s", "a", "trap")
+                .addTransition("s", "b", "trap")
+                .addTransition("t", "a", "t")
+                .addTransition("trap", "a", "trap")
+                .addTransition("trap", "b", "trap")
+                .addFinal("t")
+                .build();
+        for (CompiledAutomaton compiled : Arrays.asList(trap.compile(), trapNfa.compile())) {
+            AutomatonMatcher matcher = compiled.matcher();
+            assertFalse(matcher.feed("aa").isDead());
+            assertTrue(matcher.isAccepting());
+            assertTrue(matcher.feed('b').isDead());
+            assertTrue(matcher.reset().feed('b').isDead());
+            assertEquals(1, matcher.position());
+        }
+        assertFalse(trapNfa.isDeterministic());
+        TransitionTable empty = new TransitionTable.Builder().setInitial("s").addTransition("s", "a", "s").build();
+        assertTrue(empty.compile().matcher().isDead());
+    }
+
+    @Test
+    void testTransitionTable() {
+        TransitionTable dfa = deterministicFA.toTransitionTable();
+        assertTrue(dfa.isDeterministic());
+        assertEquals(3, dfa.stateCount());
+        assertEquals(2, dfa.symbolCount());
+        assertEquals(3, dfa.transitionCount());
+        assertArrayEquals(new int[]{1}, dfa.targets(0, 1));
+        assertArrayEquals(new int[0], dfa.targets(2, 0));
+        assertLanguagesAgree(deterministicFA, dfa.toFiniteAutomaton(), "01", 6);
+
+        TransitionTable nfa = nonDeterministicFA.toTransitionTable();
+        assertFalse(nfa.isDeterministic());
+        assertArrayEquals(new int[]{0, 1}, nfa.targets(0, 1));
+        assertArrayEquals(new int[]{1}, nfa.epsilonTargets(0));
+        FiniteAutomaton roundTrip = nfa.toFiniteAutomaton();
+        assertFalse(roundTrip.isDeterministic());
+        assertTrue(roundTrip.Sigma.contains("ε"));
+        assertLanguagesAgree(nonDeterministicFA, roundTrip, "01", 6);
+
+        // Duplicate transitions collapse, so this table is deterministic
+        TransitionTable built = new TransitionTable.Builder()
+                .setInitial("s")
+                .addTransition("s", "a", "t")
+                .addTransition("s", "a", "t")
+                .addTransition("t", "b", "s")
+                .addFinal("t")
+                .build();
+        assertTrue(built.isDeterministic());
+        assertEquals(2, built.transitionCount());
+        CompiledAutomaton compiled = built.compile();
+        assertTrue(compiled.accepts("aba"));
+        assertFalse(compiled.accepts("ab"));
+
+        assertThrows(IllegalStateException.class, () -> new TransitionTable.Builder().addTransition("s", "a", "s").build());
+
+        // A flat DFA table cannot hold an NFA row, compiling one as a DFA is refused
+        assertThrows(IllegalArgumentException.class, () -> CompiledAutomaton.of(nfa, false));
+        assertThrows(IllegalArgumentException.class, () -> CompiledAutomaton.of(nthSymbolFromEndIsA(1).toTransitionTable(), false));
+        assertTrue(CompiledAutomaton.of(built, false).accepts("aba"));
+    }
+
+    @Test
+    void testSymbolClasses() {
+        // Identifiers: a letter followed by letters or digits, every letter and every digit behaves alike
+        String letters = "abcdefghijklmnopqrstuvwxyz";
+        String digits = "0123456789";
+        List<String> sigma = new ArrayList<>();
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        for (char c : (letters + digits).toCharArray()) {
+            sigma.add(String.valueOf(c));
+            if (letters.indexOf(c) >= 0) {
+                HashMap<String, String> start = new HashMap<>();
+                start.put("s", String.valueOf(c));
+                delta.put(start, Arrays.asList("id"));
+            }
+            HashMap<String, String> rest = new HashMap<>();
+            rest.put("id", String.valueOf(c));
+            delta.put(rest, Arrays.asList("id"));
+        }
+        FiniteAutomaton identifier = new FiniteAutomaton(Arrays.asList("s", "id"), sigma, delta, "s", Arrays.asList("id"));
+
+        CompiledAutomaton compiled = identifier.compile();
+        assertEquals(36, compiled.symbolCount());
+        assertEquals(2, compiled.classCount());
+        assertTrue(compiled.accepts("x42"));
+        assertFalse(compiled.accepts("4x"));
+        assertFalse(compiled.accepts("x_"));
+
+        // The classes are expanded again when converting back, so every symbol keeps its transitions
+        FiniteAutomaton minimal = identifier.minimize();
+        assertEquals(sigma, minimal.Sigma);
+        assertEquals(72 - 10, minimal.delta.size());
+        assertLanguagesAgree(identifier, minimal, "az09_", 3);
+
+        CompiledAutomaton nfa = nthSymbolFromEndIsA(3).compile();
+        assertEquals(2, nfa.classCount());
+    }
+
+    @Test
+    void testMultiPatternAutomaton() {
+        List<FiniteAutomaton> patterns = new ArrayList<>();
+        for (int n = 0; n < 4; n++) patterns.add(nthSymbolFromEndIsA(n));
+        patterns.add(deterministicFA);
+        patterns.add(nonDeterministicFA);
+        MultiPatternAutomaton union = new MultiPatternAutomaton(patterns);
+        assertEquals(6, union.patternCount());
+
+        for (String input : allStrings("ab01", 5)) {
+            BitSet expected = new BitSet();
+            for (int id = 0; id < patterns.size(); id++) {
+                if (patterns.get(id).stringBelongToLanguage(input)) expected.set(id);
+            }
+            assertEquals(expected, union.matches(input), input);
+            assertEquals(!expected.isEmpty(), union.matchesAny(input), input);
+        }
+        assertTrue(union.matches("c").isEmpty());
+    }
+
+    @Test
+    void testLanguageOperations() {
+        FiniteAutomaton second = nthSymbolFromEndIsA(1);
+        FiniteAutomaton third = nthSymbolFromEndIsA(2);
+
+        FiniteAutomaton both = second.intersection(third);
+        FiniteAutomaton onlySecond = second.difference(third);
+        FiniteAutomaton notSecond = second.complement();
+        assertTrue(both.isDeterministic());
+        for (String input : allStrings("ab", 7)) {
+            boolean inSecond = second.stringBelongToLanguage(input);
+            boolean inThird = third.stringBelongToLanguage(input);
+            assertEquals(inSecond && inThird, both.stringBelongToLanguage(input), input);
+            assertEquals(inSecond && !inThird, onlySecond.stringBelongToLanguage(input), input);
+            assertEquals(!inSecond, notSecond.stringBelongToLanguage(input), input);
+        }
+        assertFalse(notSecond.stringBelongToLanguage("c"));
+
+        assertEquals("aaa", second.intersectionWitness(third));
+        assertEquals("aa", second.differenceWitness(third));
+        assertEquals("a", nthSymbolFromEndIsA(0).shortestString());
+        assertEquals("", nonDeterministicFA.shortestString());
+        assertFalse(second.isEmpty());
+        assertTrue(second.intersection(notSecond).isEmpty());
+        assertNull(second.intersectionWitness(notSecond));
+
+        assertTrue(third.isEquivalent(third.convertToDFA()));
+        assertTrue(third.isEquivalent(third.minimize()));
+        assertFalse(second.isEquivalent(third));
+        assertTrue(notSecond.complement().isEquivalent(second));
+
+        // Different alphabets: symbols outside an automaton's alphabet are rejected by it
+        assertNull(deterministicFA.intersectionWitness(second));
+        assertEquals("10", deterministicFA.differenceWitness(second));
+    }
+
+    @Test
+    void testDistinguishingString() {
+        FiniteAutomaton third = nthSymbolFromEndIsA(2);
+        assertNull(third.distinguishingString(third.convertToDFA()));
+        assertNull(third.distinguishingString(third.minimize()));
+        assertNull(third.distinguishingString(third.convertToGrammar().toFiniteAutomaton()));
+        assertEquals("aa", nthSymbolFromEndIsA(1).distinguishingString(third));
+        assertEquals("", deterministicFA.distinguishingString(nonDeterministicFA));
+
+        // Strings of a's whose length is divisible by n, counted modulo n and modulo 2n
+        int n = 20_000;
+        FiniteAutomaton modN = countingA(n, n);
+        assertTrue(modN.isEquivalent(countingA(2 * n, n)));
+        assertEquals("a".repeat(n), modN.distinguishingString(countingA(2 * n, 2 * n)));
+    }
+
+    @Test
+    void testEnumerateStrings() {
+        // The NFA and its minimal DFA enumerate the same strings, in the order allStrings filters them
+        FiniteAutomaton third = nthSymbolFromEndIsA(2);
+        List<String> expected = new ArrayList<>();
+        for (String input : allStrings("ab", 8)) {
+            if (third.stringBelongToLanguage(input)) expected.add(input);
+        }
+        for (FiniteAutomaton automaton : Arrays.asList(third, third.minimize())) {
+            List<String> strings = new ArrayList<>();
+            automaton.enumerateStrings(8).forEachRemaining(strings::add);
+            assertEquals(expected, strings);
+        }
+
+        assertEquals(Arrays.asList("", "1", "11", "111"), toList(nonDeterministicFA.enumerateStrings(3)));
+        assertEquals(Arrays.asList("10", "010", "0010"), toList(deterministicFA.enumerateStrings(4)));
+        assertEquals(Arrays.asList("", "aaa", "aaaaaa"), toList(countingA(3, 3).enumerateStrings(8)));
+        assertFalse(third.intersection(third.complement()).enumerateStrings(10).hasNext());
+
+        // All 2^20 - 1 strings ending with a up to length 20, produced one at a time
+        Iterator<String> strings = nthSymbolFromEndIsA(0).enumerateStrings(20);
+        long count = 0;
+        String last = null;
+        while (strings.hasNext()) {
+            last = strings.next();
+            count++;
+        }
+        assertEquals((1L << 20) - 1, count);
+        assertEquals("b".repeat(19) + "a", last);
+        assertThrows(NoSuchElementException.class, strings::next);
+    }
+
+    private static List<String> toList(Iterator<String> strings) {
+        List<String> list = new ArrayList<>();
+        strings.forEachRemaining(list::add);
+        return list;
+    }
+
+    // a cycle of length states over {a} accepting every multiple of period
+    private static FiniteAutomaton countingA(int states, int period) {
+        List<String> Q = new ArrayList<>();
+        List<String> F = new ArrayList<>();
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        for (int i = 0; i < states; i++) {
+            Q.add("c" + i);
+            if (i % period == 0) F.add("c" + i);
+            HashMap<String, String> key = new HashMap<>();
+            key.put("c" + i, "a");
+            delta.put(key, Arrays.asList("c" + ((i + 1) % states)));
+        }
+        return new FiniteAutomaton(Q, Arrays.asList("a"), delta, "c0", F);
+    }
+
+    // (a|b)*a(a|b)^n: a small NFA whose DFA needs 2^(n+1) states
+    static FiniteAutomaton nthSymbolFromEndIsA(int n) {
+        List<String> states = new ArrayList<>();
+        HashMap<HashMap<String, String>, List<String>> delta = new HashMap<>();
+        for (int i = 0; i <= n + 1; i++) states.add("r" + i);
+        HashMap<String, String> loopA = new HashMap<>();
+        loopA.put("r0", "a");
+        delta.put(loopA, Arrays.asList("r0", "r1"));
+        HashMap<String, String> loopB = new HashMap<>();
+        loopB.put("r0", "b");
+        delta.put(loopB, Arrays.asList("r0"));
+        for (int i = 1; i <= n; i++) {
+            for (String symbol : Arrays.asList("a", "b")) {
+                HashMap<String, String> key = new HashMap<>();
+                key.put("r" + i, symbol);
+                delta.put(key, Arrays.asList("r" + (i + 1)));
+            }
+        }
+        return new FiniteAutomaton(states, Arrays.asList("a", "b"), delta, "r0", Arrays.asList("r" + (n + 1)));
+    }
+
+    static void assertLanguagesAgree(FiniteAutomaton expected, FiniteAutomaton actual, String alphabet, int maxLength) {
+        for (String input : allStrings(alphabet, maxLength)) {
+            assertEquals(expected.stringBelongToLanguage(input), actual.stringBelongToLanguage(input), input);
+        }
+    }
+
+    // All strings over the alphabet with length up to maxLength, shortest first
+    static List<String> allStrings(String alphabet, int maxLength) {
+        List<String> result = new ArrayList<>();
+        result.add("");
+        for (int start = 0, length = 1; length <= maxLength; length++) {
+            int end = result.size();
+            for (int i = start; i < end; i++) {
+                for (char c : alphabet.toCharArray()) result.add(result.get(i) + c);
+            }
+            start = end;
+        }
+        return result;
+    }
+
     @Test
     void testSaveToDotFile() {
         String tempFilePath = System.getProperty("java.io.tmpdir") + "/test_automaton.dot";
@@ -2,11 +2,25 @@ package uni.project.grammarAndFA;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class GrammarTest {
     private Grammar regularGrammar;
@@ -43,10 +57,415 @@ public class GrammarTest {
         }
     }
 
+    @Test
+    void testUndeclaredSymbol() {
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("aX", "ε"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> new Grammar(Arrays.asList("S"), Arrays.asList("a"), "S", rules));
+        assertTrue(error.getMessage().contains("X") && error.getMessage().contains("aX"), error.getMessage());
+    }
+
+    @Test
+    void testSentenceGenerator() {
+        // The grammar from Main: A → AbAa recurses twice and never terminated with the old generator
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("bA", "AC"));
+        rules.put("A", Arrays.asList("AbAa", "bS", "BC"));
+        rules.put("B", Arrays.asList("BbaA", "a", "bSa"));
+        rules.put("C", Arrays.asList("ε"));
+        rules.put("D", Arrays.asList("AB"));
+        Grammar grammar = new Grammar(Arrays.asList("S", "A", "B", "C", "D"), Arrays.asList("a", "b"), "S", rules);
+        EarleyParser parser = grammar.toEarleyParser();
+        SentenceGenerator generator = new SentenceGenerator(grammar, 60, 12);
+        assertEquals(1, generator.shortestLength());
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 500; i++) {
+            String sentence = generator.next(random);
+            assertTrue(sentence.length() <= 60, sentence);
+            assertTrue(parser.accepts(sentence), sentence);
+        }
+        assertEquals(generator.next(7L), generator.next(7L));
+        assertEquals(grammar.generateString(new SplittableRandom(3)), grammar.generateString(new SplittableRandom(3)));
+
+        // S → SS | a doubles at every step, the budgets still stop it
+        rules.clear();
+        rules.put("S", Arrays.asList("SS", "a"));
+        SentenceGenerator doubling = new SentenceGenerator(
+                new Grammar(Arrays.asList("S"), Arrays.asList("a"), "S", rules), 10_000, 1_000);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(doubling.next(random).matches("a{1,10000}"));
+        }
+
+        // Nullable rules that multiply themselves are not limited by the length budget, the node budget stops them
+        rules.clear();
+        rules.put("S", Arrays.asList("CC", "ε", "Ca"));
+        rules.put("C", Arrays.asList("SS"));
+        Grammar nullable = new Grammar(Arrays.asList("S", "C"), Arrays.asList("a"), "S", rules);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int seed = 0; seed < 200; seed++) {
+                String sentence = nullable.generateString(new SplittableRandom(seed));
+                assertTrue(sentence.matches("a{0,1000}"), sentence);
+            }
+        });
+        EarleyParser nullableParser = nullable.toEarleyParser();
+        SentenceGenerator shortNullable = new SentenceGenerator(nullable, 40, Grammar.DEFAULT_MAX_DEPTH);
+        for (int i = 0; i < 50; i++) {
+            String sentence = shortNullable.next(random);
+            assertTrue(sentence.length() <= 40 && nullableParser.accepts(sentence), sentence);
+        }
+        rules.clear();
+        rules.put("S", Arrays.asList("bSa", "AA", "ε"));
+        rules.put("A", Arrays.asList("SS"));
+        rules.put("C", Arrays.asList("ε", "b", "B"));
+        Grammar mirrored = new Grammar(Arrays.asList("S", "A", "B", "C"), Arrays.asList("a", "b"), "S", rules);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int seed = 0; seed < 200; seed++) mirrored.generateString(new SplittableRandom(seed));
+        });
+
+        rules.clear();
+        rules.put("S", Arrays.asList("aS"));
+        assertThrows(IllegalStateException.class,
+                () -> new SentenceGenerator(new Grammar(Arrays.asList("S"), Arrays.asList("a"), "S", rules), 10, 10));
+    }
+
+    @Test
+    void testBulkGeneration(@TempDir Path directory) throws Exception {
+        SentenceGenerator generator = new SentenceGenerator(contextFreeGrammar, 40, 20);
+        List<String> sentences = generator.stream(5000, 11L).collect(Collectors.toList());
+        assertEquals(5000, sentences.size());
+        EarleyParser parser = contextFreeGrammar.toEarleyParser();
+        for (String sentence : sentences.subList(0, 200)) assertTrue(parser.accepts(sentence), sentence);
+
+        // The same seed gives the same sentences whatever the number of threads
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            assertEquals(sentences, single.submit(() -> generator.stream(5000, 11L).collect(Collectors.toList())).get());
+            assertEquals(sentences, four.submit(() -> generator.stream(5000, 11L).collect(Collectors.toList())).get());
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+        assertNotEquals(sentences, generator.stream(5000, 12L).collect(Collectors.toList()));
+        // Block generators are created on demand, so a huge count costs nothing up front
+        assertEquals(sentences.subList(0, 10), generator.stream(1L << 40, 11L).sequential().limit(10).collect(Collectors.toList()));
+        assertEquals(contextFreeGrammar.generateStrings(100, 5L).collect(Collectors.toList()),
+                contextFreeGrammar.generateStrings(100, 5L).collect(Collectors.toList()));
+
+        Path file = directory.resolve("sentences.txt");
+        long bytes = generator.writeTo(file, 5000, 11L);
+        assertEquals(Files.size(file), bytes);
+        assertEquals(sentences, Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUniformSampler() {
+        // S → aS | bS | a | b derives every non-empty string exactly once
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("aS", "bS", "a", "b"));
+        Grammar strings = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules);
+        UniformSampler sampler = new UniformSampler(strings, 400);
+        assertEquals(3.0, sampler.log2Count(3), 1e-9);
+        assertEquals(400.0, sampler.log2Count(400), 1e-9);
+        SplittableRandom random = new SplittableRandom(5);
+        Map<String, Integer> seen = new HashMap<>();
+        for (int i = 0; i < 8000; i++) seen.merge(sampler.sample(3, random), 1, Integer::sum);
+        assertEquals(8, seen.size());
+        for (int count : seen.values()) assertTrue(Math.abs(count - 1000) < 150, seen.toString());
+        assertEquals(400, sampler.sample(400, random).length());
+
+        // S → aSbS | ε: the sentences of length 2m are counted by the Catalan numbers
+        rules.clear();
+        rules.put("S", Arrays.asList("aSbS", "ε"));
+        Grammar dyck = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules);
+        UniformSampler balanced = new UniformSampler(dyck, 200);
+        assertEquals(Math.log(42) / Math.log(2), balanced.log2Count(10), 1e-9);
+        assertEquals(Double.NEGATIVE_INFINITY, balanced.log2Count(7));
+        assertEquals("", balanced.sample(0, random));
+        assertNull(balanced.sample(7, random));
+        EarleyParser parser = dyck.toEarleyParser();
+        for (int i = 0; i < 50; i++) {
+            String sentence = dyck.sampleUniform(2 * i, random);
+            assertEquals(2 * i, sentence.length());
+            assertTrue(parser.accepts(sentence), sentence);
+        }
+        assertThrows(IllegalArgumentException.class, () -> balanced.sample(201, random));
+    }
+
     @Test
     void testDetermineGrammarType() {
         assertEquals("Type 3", regularGrammar.determineGrammarType());
         assertEquals("Type 2", contextFreeGrammar.determineGrammarType());
+
+        // AB on a left side is two symbols, S → aAB still splits into a, A, B
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("aAB"));
+        rules.put("A", Arrays.asList("a"));
+        rules.put("B", Arrays.asList("b"));
+        rules.put("AB", Arrays.asList("BA"));
+        Grammar contextSensitive = new Grammar(Arrays.asList("S", "A", "B"), Arrays.asList("a", "b"), "S", rules);
+        assertEquals("Type 1", contextSensitive.determineGrammarType());
+        assertEquals(3, contextSensitive.ruleBodies[contextSensitive.ruleOffsets[contextSensitive.start]].length);
+        assertThrows(IllegalStateException.class, contextSensitive::toEarleyParser);
+        assertThrows(IllegalStateException.class, contextSensitive::toChomskyNormalForm);
+        rules.put("AB", Arrays.asList("a"));
+        Grammar unrestricted = new Grammar(Arrays.asList("S", "A", "B"), Arrays.asList("a", "b"), "S", rules);
+        assertEquals("Type 0", unrestricted.determineGrammarType());
+    }
+
+    @Test
+    void testMultiCharSymbols() {
+        // N0 → aN1 | b, ..., N29 → a: thirty non-terminals with multi-char names
+        List<String> vn = new ArrayList<>();
+        for (int i = 0; i < 30; i++) vn.add("N" + i);
+        HashMap<String, List<String>> rules = new HashMap<>();
+        for (int i = 0; i < 29; i++) rules.put("N" + i, Arrays.asList("aN" + (i + 1), "b"));
+        rules.put("N29", Arrays.asList("a"));
+        Grammar chain = new Grammar(vn, Arrays.asList("a", "b"), "N0", rules);
+        assertEquals("Type 3", chain.determineGrammarType());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(chain.generateString().matches("a{0,28}b|a{30}"));
+        }
+
+        FiniteAutomaton fa = chain.toFiniteAutomaton();
+        CykParser cnf = chain.toCykParser();
+        for (int n = 0; n <= 31; n++) {
+            String ending = "a".repeat(n) + "b";
+            String full = "a".repeat(n);
+            assertEquals(n <= 28, fa.stringBelongToLanguage(ending), ending);
+            assertEquals(n <= 28, cnf.accepts(ending), ending);
+            assertEquals(n == 30, fa.stringBelongToLanguage(full), full);
+            assertEquals(n == 30, cnf.accepts(full), full);
+        }
+    }
+
+    @Test
+    void testCykParser() {
+        CykParser parser = contextFreeGrammar.toCykParser();
+        for (String input : FiniteAutomatonTest.allStrings("ab", 7)) {
+            assertEquals(input.matches("a*b+"), parser.accepts(input), input);
+        }
+
+        // S → aSb | ε: a^n b^n, the start variable is nullable and recursive
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("aSb", "ε"));
+        CykParser balanced = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules).toCykParser();
+        for (String input : FiniteAutomatonTest.allStrings("ab", 8)) {
+            int n = input.length() / 2;
+            boolean expected = input.equals("a".repeat(n) + "b".repeat(n));
+            assertEquals(expected, balanced.accepts(input), input);
+        }
+        assertTrue(balanced.accepts("a".repeat(200) + "b".repeat(200)));
+        assertFalse(balanced.accepts("a".repeat(200) + "b".repeat(199)));
+        assertFalse(balanced.accepts("abc"));
+    }
+
+    @Test
+    void testCykMultiCharTerminals() {
+        // S → abS | c: the terminal ab is spelled out for CYK and agrees with Earley
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("abS", "c"));
+        Grammar grammar = new Grammar(Arrays.asList("S"), Arrays.asList("ab", "c"), "S", rules);
+        CykParser cyk = grammar.toCykParser();
+        EarleyParser earley = grammar.toEarleyParser();
+        assertTrue(cyk.accepts("ababc"));
+        for (String input : FiniteAutomatonTest.allStrings("abc", 6)) {
+            assertEquals(earley.accepts(input), cyk.accepts(input), input);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new CykParser(grammar.toChomskyNormalForm()));
+
+        // A table of 70000 chars needs more than 2^31 cells
+        rules.clear();
+        rules.put("S", Arrays.asList("SS", "a"));
+        CykParser doubling = new Grammar(Arrays.asList("S"), Arrays.asList("a"), "S", rules).toCykParser();
+        assertThrows(IllegalArgumentException.class, () -> doubling.accepts("a".repeat(70_000)));
+    }
+
+    @Test
+    void testCykParseTree() {
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("AB"));
+        rules.put("A", Arrays.asList("a"));
+        rules.put("B", Arrays.asList("b"));
+        CykParser parser = new CykParser(new Grammar(Arrays.asList("S", "A", "B"), Arrays.asList("a", "b"), "S", rules));
+        assertEquals("S(A(a) B(b))", parser.parse("ab"));
+        assertNull(parser.parse("ba"));
+        assertEquals(1, parser.binaryRuleCount());
+
+        rules.put("S", Arrays.asList("ABA"));
+        Grammar notCnf = new Grammar(Arrays.asList("S", "A", "B"), Arrays.asList("a", "b"), "S", rules);
+        assertThrows(IllegalArgumentException.class, () -> new CykParser(notCnf));
+    }
+
+    @Test
+    void testParallelCyk() {
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("aSb", "SS", "ε"));
+        CykParser dyck = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules).toCykParser();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String input : FiniteAutomatonTest.allStrings("ab", 8)) {
+                assertEquals(dyck.accepts(input), dyck.accepts(input, pool), input);
+            }
+            String nested = "ab".repeat(50) + "a".repeat(100) + "b".repeat(100) + "ab".repeat(50);
+            assertTrue(dyck.accepts(nested, pool));
+            assertFalse(dyck.accepts(nested + "a", pool));
+            assertFalse(dyck.accepts("b" + nested.substring(1), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testChomskyNormalForm() {
+        // The grammar from Main: the CNF must describe the same language as the original
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("bA", "AC"));
+        rules.put("A", Arrays.asList("AbAa", "bS", "BC"));
+        rules.put("B", Arrays.asList("BbaA", "a", "bSa"));
+        rules.put("C", Arrays.asList("ε"));
+        rules.put("D", Arrays.asList("AB"));
+        Grammar grammar = new Grammar(Arrays.asList("S", "A", "B", "C", "D"), Arrays.asList("a", "b"), "S", rules);
+        CykParser cnf = grammar.toCykParser();
+        EarleyParser original = grammar.toEarleyParser();
+        for (String input : FiniteAutomatonTest.allStrings("ab", 9)) {
+            assertEquals(original.accepts(input), cnf.accepts(input), input);
+        }
+
+        // Twenty nullable symbols in one body: binarizing first keeps ε-removal from enumerating 2^20 subsets
+        rules.clear();
+        rules.put("S", Arrays.asList("A".repeat(20) + "b"));
+        rules.put("A", Arrays.asList("a", "ε"));
+        CykParser padded = new Grammar(Arrays.asList("S", "A"), Arrays.asList("a", "b"), "S", rules).toCykParser();
+        assertTrue(padded.binaryRuleCount() <= 21 * 21, "unit removal is quadratic here, not exponential");
+        for (int n = 0; n <= 22; n++) {
+            assertEquals(n <= 20, padded.accepts("a".repeat(n) + "b"));
+        }
+        assertFalse(padded.accepts("a"));
+    }
+
+    @Test
+    void testEarleyParser() {
+        EarleyParser parser = contextFreeGrammar.toEarleyParser();
+        CykParser cyk = contextFreeGrammar.toCykParser();
+        for (String input : FiniteAutomatonTest.allStrings("ab", 7)) {
+            assertEquals(cyk.accepts(input), parser.accepts(input), input);
+        }
+
+        // Nullable start variable with left recursion: S → SS | aSb | ε
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("S", Arrays.asList("SS", "aSb", "ε"));
+        EarleyParser dyck = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules).toEarleyParser();
+        for (String input : FiniteAutomatonTest.allStrings("ab", 8)) {
+            int depth = 0;
+            boolean balanced = true;
+            for (char c : input.toCharArray()) {
+                depth += c == 'a' ? 1 : -1;
+                balanced &= depth >= 0;
+            }
+            assertEquals(balanced && depth == 0, dyck.accepts(input), input);
+        }
+
+        // Multi-char symbols: Expr → Expr+Term | Term, Term → id | (Expr)
+        rules.clear();
+        rules.put("Expr", Arrays.asList("Expr+Term", "Term"));
+        rules.put("Term", Arrays.asList("id", "(Expr)"));
+        EarleyParser expressions = new Grammar(Arrays.asList("Expr", "Term"),
+                Arrays.asList("id", "+", "(", ")"), "Expr", rules).toEarleyParser();
+        assertTrue(expressions.accepts("id+(id+id)"));
+        assertFalse(expressions.accepts("id+"));
+        assertFalse(expressions.accepts("i"));
+
+        // Right recursion stays linear with Leo's optimization
+        rules.clear();
+        rules.put("S", Arrays.asList("aS", "b"));
+        EarleyParser right = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules).toEarleyParser();
+        assertTrue(right.accepts("a".repeat(100_000) + "b"));
+        assertFalse(right.accepts("a".repeat(100_000)));
+    }
+
+    @Test
+    void testParseForest() {
+        // E → E+E | a: the trees of a+a+...+a are counted by the Catalan numbers
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("E", Arrays.asList("E+E", "a"));
+        EarleyParser sums = new Grammar(Arrays.asList("E"), Arrays.asList("a", "+"), "E", rules).toEarleyParser();
+        ParseForest forest = sums.parseForest("a+a");
+        assertEquals(BigInteger.ONE, forest.treeCount());
+        assertEquals("E(E(a) + E(a))", forest.tree(BigInteger.ZERO));
+
+        forest = sums.parseForest("a+a+a");
+        assertTrue(forest.isAmbiguous());
+        Set<String> trees = new HashSet<>();
+        forest.trees().forEachRemaining(trees::add);
+        assertEquals(Set.of("E(E(E(a) + E(a)) + E(a))", "E(E(a) + E(E(a) + E(a)))"), trees);
+
+        forest = sums.parseForest("a" + "+a".repeat(30));
+        assertEquals(new BigInteger("3814986502092304"), forest.treeCount());
+        assertTrue(forest.familyCount() < 31 * 31 * 31);
+        String last = forest.tree(forest.treeCount().subtract(BigInteger.ONE));
+        assertEquals(31, last.chars().filter(c -> c == 'a').count());
+        assertNull(sums.parseForest("a+"));
+
+        // ε-rules show up as A(ε)
+        rules.clear();
+        rules.put("S", Arrays.asList("AbA"));
+        rules.put("A", Arrays.asList("a", "ε"));
+        ParseForest optional = new Grammar(Arrays.asList("S", "A"), Arrays.asList("a", "b"), "S", rules)
+                .toEarleyParser().parseForest("ba");
+        assertEquals(BigInteger.ONE, optional.treeCount());
+        assertEquals("S(A(ε) b A(a))", optional.tree(BigInteger.ZERO));
+
+        // A unit cycle gives infinitely many trees
+        rules.clear();
+        rules.put("S", Arrays.asList("S", "a"));
+        ParseForest cyclic = new Grammar(Arrays.asList("S"), Arrays.asList("a"), "S", rules)
+                .toEarleyParser().parseForest("a");
+        assertThrows(IllegalStateException.class, cyclic::treeCount);
+    }
+
+    @Test
+    void testEnumerateStrings() {
+        // E → E+E | a is ambiguous, yet every sentence comes once
+        HashMap<String, List<String>> rules = new HashMap<>();
+        rules.put("E", Arrays.asList("E+E", "a"));
+        Grammar sums = new Grammar(Arrays.asList("E"), Arrays.asList("+", "a"), "E", rules);
+        List<String> sentences = new ArrayList<>();
+        sums.enumerateStrings(8).forEachRemaining(sentences::add);
+        assertEquals(Arrays.asList("a", "a+a", "a+a+a", "a+a+a+a"), sentences);
+
+        // Multi-char terminals and ε: the shortlex order agrees with filtering all strings
+        rules.clear();
+        rules.put("S", Arrays.asList("abSA", "ε"));
+        rules.put("A", Arrays.asList("ba", "a", "ε"));
+        Grammar mixed = new Grammar(Arrays.asList("S", "A"), Arrays.asList("ab", "ba", "a"), "S", rules);
+        EarleyParser parser = mixed.toEarleyParser();
+        List<String> expected = new ArrayList<>();
+        for (String input : FiniteAutomatonTest.allStrings("ab", 9)) {
+            if (parser.accepts(input)) expected.add(input);
+        }
+        sentences.clear();
+        mixed.enumerateStrings(9).forEachRemaining(sentences::add);
+        assertEquals(expected, sentences);
+
+        // Balanced strings: Catalan(m) sentences of length 2m, each length in increasing order
+        rules.clear();
+        rules.put("S", Arrays.asList("aSbS", "ε"));
+        Grammar dyck = new Grammar(Arrays.asList("S"), Arrays.asList("a", "b"), "S", rules);
+        Iterator<String> balanced = dyck.enumerateStrings(20);
+        Map<Integer, Integer> byLength = new HashMap<>();
+        String previous = null;
+        while (balanced.hasNext()) {
+            String sentence = balanced.next();
+            if (previous != null && previous.length() == sentence.length()) assertTrue(previous.compareTo(sentence) < 0);
+            byLength.merge(sentence.length(), 1, Integer::sum);
+            previous = sentence;
+        }
+        assertEquals(16796, byLength.get(20));
+        assertEquals(11, byLength.size());
+        assertEquals("ab".repeat(10), previous);
+        assertThrows(IllegalArgumentException.class, () -> dyck.enumerateStrings(-1));
     }
 
     @Test